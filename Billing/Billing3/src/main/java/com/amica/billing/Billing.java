@@ -1,16 +1,18 @@
 package com.amica.billing;
 
+import com.amica.billing.parse.DurableFile;
+import com.amica.billing.parse.GroupCommit;
 import com.amica.billing.parse.Parser;
 import com.amica.esa.componentconfiguration.manager.ComponentConfigurationManager;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.extern.java.Log;
 
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.function.Consumer;
@@ -27,6 +29,9 @@ import static java.util.function.Function.identity;
  * formats; offers a few useful queries on the loaded data;
  *  and allows a few modifications to the data set, which will be 
  *  saved back to the original data files.
+ * Each save replaces a file atomically, as a {@link DurableFile}; and
+ * with a {@link #setGroupCommitWindow group-commit window} set, a burst
+ * of changes within the window makes a single write.
  * 
  * @author Will Provost
  */
@@ -53,6 +58,8 @@ public class Billing {
 	private int nextInvoiceNumber;
 	private List<Consumer<Customer>> customerListeners = new ArrayList<>();
 	private List<Consumer<Invoice>> invoiceListeners = new ArrayList<>();
+	private GroupCommit customersCommit;
+	private GroupCommit invoicesCommit;
 
 	public static final String configName = "Billing";
 	public static final String customersProp = "Billing.customersFile";
@@ -83,6 +90,7 @@ public class Billing {
 			log.log(Level.SEVERE, "Couldn't load from given filenames.", ex);
 		}
 		
+		setGroupCommitWindow(Duration.ZERO);
 	}
 
 	public Billing(com.amica.escm.configuration.api.Configuration configuration) {
@@ -95,30 +103,60 @@ public class Billing {
 				.getConfiguration(configName));
 	}
 	
+	/**
+	 * Sets the window within which changes are gathered into one write
+	 * of each file. With a zero window -- the default -- every change
+	 * is written immediately. Changes pending under a prior window are
+	 * written first.
+	 */
+	public void setGroupCommitWindow(Duration window) {
+		close();
+		customersCommit = new GroupCommit(customersFile.toString(), 
+				this::saveCustomers, window);
+		invoicesCommit = new GroupCommit(invoicesFile.toString(), 
+				this::saveInvoices, window);
+	}
+	
+	/**
+	 * Writes any changes still waiting out the group-commit window.
+	 */
+	public void flush() {
+		customersCommit.flush();
+		invoicesCommit.flush();
+	}
+	
+	/**
+	 * Writes any pending changes, and stops background writing.
+	 */
+	public void close() {
+		if (customersCommit != null) {
+			customersCommit.close();
+			invoicesCommit.close();
+		}
+	}
+	
 	/**
 	 * Save updated data to the customers file.
 	 */
-	private void saveCustomers() {
-		try ( PrintWriter out = new PrintWriter(new FileWriter(customersFile.toFile())); ) {
-			parser.produceCustomers(customers.values().stream())
-				.forEach(out::println);
-		} catch (Exception ex) {
-			log.log(Level.WARNING, ex, 
-					() -> "Couldn't open " + customersFile + " in write mode.");
+	private void saveCustomers() throws IOException {
+		List<Customer> snapshot;
+		synchronized(this) {
+			snapshot = new ArrayList<>(customers.values());
 		}
+		new DurableFile(customersFile).replace
+				(parser.produceCustomers(snapshot.stream()));
 	}
 
 	/**
 	 * Save updated data to the invoices file.
 	 */
-	private void saveInvoices() {
-		try ( PrintWriter out = new PrintWriter(new FileWriter(invoicesFile.toFile())); ) {
-			parser.produceInvoices(invoices.stream())
-				.forEach(out::println);
-		} catch (Exception ex) {
-			log.log(Level.WARNING, ex, 
-					() -> "Couldn't open " + invoicesFile + " in write mode.");
+	private void saveInvoices() throws IOException {
+		List<Invoice> snapshot;
+		synchronized(this) {
+			snapshot = new ArrayList<>(invoices);
 		}
+		new DurableFile(invoicesFile).replace
+				(parser.produceInvoices(snapshot.stream()));
 	}
 	
 	/**
@@ -156,8 +194,10 @@ public class Billing {
 	public void createCustomer(String firstName, String lastName, Terms terms) {
 		Customer customer = new Customer(firstName, lastName, terms);
 		if (!customers.containsKey(customer.getName())) {
-			customers.put(customer.getName(), customer);
-			saveCustomers();
+			synchronized(this) {
+				customers.put(customer.getName(), customer);
+			}
+			customersCommit.request();
 			synchronized(this) {
 				for (Consumer<Customer> listener : customerListeners) {
 					listener.accept(customer);
@@ -181,8 +221,10 @@ public class Billing {
 			Invoice invoice = new Invoice(nextInvoiceNumber++, 
 					customers.get(customerName), amount, 
 					LocalDate.now());
-			invoices.add(invoice);
-			saveInvoices();
+			synchronized(this) {
+				invoices.add(invoice);
+			}
+			invoicesCommit.request();
 			synchronized(this) {
 				for (Consumer<Invoice> listener : invoiceListeners) {
 					listener.accept(invoice);
@@ -207,7 +249,7 @@ public class Billing {
 			Invoice invoice = found.get();
 			if (!invoice.getPaidDate().isPresent()) {
 				invoice.setPaidDate(Optional.of(LocalDate.now()));
-				saveInvoices();
+				invoicesCommit.request();
 				synchronized(this) {
 					for (Consumer<Invoice> listener : invoiceListeners) {
 						listener.accept(invoice);
@@ -0,0 +1,138 @@
+package com.amica.billing.parse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import lombok.extern.java.Log;
+
+/**
+ * Coalesces a burst of requests to write the same data into one write.
+ * The first request in a quiet period schedules a commit for the end of
+ * the window; further requests before then ride along with it. With a
+ * zero window, each request commits immediately, on the caller's thread.
+ * 
+ * The commit captures the data as it stands when it runs, so anything 
+ * changed before then is included. A failed background commit is logged 
+ * and left pending, so that the next request or {@link #flush} retries it.
+ * 
+ * @author Will Provost
+ */
+@Log
+public class GroupCommit implements Closeable {
+
+	/**
+	 * The write to be performed.
+	 */
+	public interface Commit {
+		public void run() throws IOException;
+	}
+	
+	private String name;
+	private Commit commit;
+	private Duration window;
+	private ScheduledExecutorService scheduler;
+	private ScheduledFuture<?> scheduled;
+	private boolean dirty;
+	private Object commitLock = new Object();
+	
+	public GroupCommit(String name, Commit commit, Duration window) {
+		this.name = name;
+		this.commit = commit;
+		this.window = window;
+		if (!window.isZero()) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "GroupCommit " + name);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+	
+	/**
+	 * Requests a write of the current data.
+	 * 
+	 * @throws UncheckedIOException If the window is zero and the write fails
+	 */
+	public void request() {
+		if (scheduler == null) {
+			commitNow();
+		} else {
+			synchronized(this) {
+				dirty = true;
+				if (scheduled == null) {
+					scheduled = scheduler.schedule(this::commitInBackground, 
+							window.toNanos(), TimeUnit.NANOSECONDS);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes any pending changes now, on the caller's thread. If a background
+	 * write is already under way, we wait for it to finish.
+	 * 
+	 * @throws UncheckedIOException If the write fails
+	 */
+	public void flush() {
+		synchronized(this) {
+			if (scheduled != null) {
+				scheduled.cancel(false);
+				scheduled = null;
+			}
+		}
+		synchronized(commitLock) {
+			boolean pending;
+			synchronized(this) {
+				pending = dirty;
+			}
+			if (pending) {
+				commitNow();
+			}
+		}
+	}
+	
+	private void commitInBackground() {
+		synchronized(this) {
+			scheduled = null;
+		}
+		try {
+			commitNow();
+		} catch (UncheckedIOException ex) {
+			log.log(Level.SEVERE, ex, () -> "Couldn't write " + name + 
+					"; will retry on the next change or flush.");
+		}
+	}
+	
+	private void commitNow() {
+		synchronized(commitLock) {
+			synchronized(this) {
+				dirty = false;
+			}
+			try {
+				commit.run();
+			} catch (IOException ex) {
+				synchronized(this) {
+					dirty = true;
+				}
+				throw new UncheckedIOException("Couldn't write " + name, ex);
+			}
+		}
+	}
+	
+	/**
+	 * Writes any pending changes, and stops the background thread.
+	 */
+	public void close() {
+		flush();
+		if (scheduler != null) {
+			scheduler.shutdown();
+		}
+	}
+}
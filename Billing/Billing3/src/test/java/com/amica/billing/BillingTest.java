@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -187,6 +188,25 @@ public class BillingTest {
 		verify(invoiceListener).accept(any(Invoice.class));
 	}
 	
+	/**
+	 * With a group-commit window set, a burst of new invoices is written
+	 * once, when the window closes or when we flush.
+	 */
+	@Test
+	public void testCreateInvoice_GroupCommit() throws IOException {
+		billing.setGroupCommitWindow(Duration.ofMinutes(1));
+		billing.createInvoice(GOOD_CUSTOMERS.get(0).getName(), 999.0);
+		billing.createInvoice(GOOD_CUSTOMERS.get(1).getName(), 888.0);
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, getInvoicesFilename())),
+				not(hasItem(startsWith("7,"))));
+		
+		billing.flush();
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, getInvoicesFilename())),
+				hasItems(startsWith("7,Customer,One,999.00,"), 
+						startsWith("8,Customer,Two,888.00,")));
+		billing.close();
+	}
+	
 	@Test
 	public void testCreateInvoice_NoSuchCustomer() {
 		assertThrows(IllegalArgumentException.class, 
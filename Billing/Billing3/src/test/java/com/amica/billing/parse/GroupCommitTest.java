@@ -0,0 +1,118 @@
+package com.amica.billing.parse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link GroupCommit} class.
+ * 
+ * @author Will Provost
+ */
+public class GroupCommitTest {
+
+	private AtomicInteger commits = new AtomicInteger();
+	
+	/**
+	 * Waits for a background commit to bring about the given condition,
+	 * failing if it takes more than a few seconds.
+	 */
+	public static void await(BooleanSupplier condition) 
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(condition.getAsBoolean(), equalTo(true));
+	}
+	
+	@Test
+	public void testZeroWindow() {
+		GroupCommit commit = new GroupCommit("test", 
+				commits::incrementAndGet, Duration.ZERO);
+		commit.request();
+		commit.request();
+		assertThat(commits.get(), equalTo(2));
+		commit.close();
+	}
+	
+	@Test
+	public void testBurstIsCoalesced() throws Exception {
+		GroupCommit commit = new GroupCommit("test", 
+				commits::incrementAndGet, Duration.ofMillis(100));
+		for (int i = 0; i < 100; ++i) {
+			commit.request();
+		}
+		assertThat(commits.get(), equalTo(0));
+		await(() -> commits.get() != 0);
+		assertThat(commits.get(), equalTo(1));
+		commit.close();
+	}
+	
+	@Test
+	public void testFlush() {
+		GroupCommit commit = new GroupCommit("test", 
+				commits::incrementAndGet, Duration.ofMinutes(1));
+		commit.flush();
+		assertThat(commits.get(), equalTo(0));
+		commit.request();
+		commit.request();
+		commit.flush();
+		assertThat(commits.get(), equalTo(1));
+		commit.close();
+		assertThat(commits.get(), equalTo(1));
+	}
+	
+	@Test
+	public void testFlushWaitsForBackgroundCommit() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		GroupCommit commit = new GroupCommit("test", () -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				commits.incrementAndGet();
+			}, Duration.ofMillis(10));
+		commit.request();
+		assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+		
+		CompletableFuture<Integer> flushed = CompletableFuture.supplyAsync(() -> {
+				commit.flush();
+				return commits.get();
+			});
+		Thread.sleep(100);
+		assertThat(flushed.isDone(), equalTo(false));
+		release.countDown();
+		assertThat(flushed.get(10, TimeUnit.SECONDS), equalTo(1));
+		commit.close();
+		assertThat(commits.get(), equalTo(1));
+	}
+	
+	@Test
+	public void testFailureStaysPending() {
+		GroupCommit commit = new GroupCommit("test", () -> {
+				if (commits.incrementAndGet() == 1) {
+					throw new IOException("Disk full");
+				}
+			}, Duration.ofMinutes(1));
+		commit.request();
+		assertThrows(UncheckedIOException.class, commit::flush);
+		commit.flush();
+		assertThat(commits.get(), equalTo(2));
+		commit.close();
+	}
+}
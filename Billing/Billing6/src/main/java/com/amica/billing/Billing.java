@@ -105,16 +105,14 @@ public class Billing {
 
 	/**
 	 * Create an invoice with the given data and add it to the set.
-	 * Invoice number is generated; invoice date is assumed to be today.
+	 * Invoice number is allocated by the persistence service;
+	 * invoice date is assumed to be today.
 	 * Save invoices and fire the invoice-change event.
 	 */
 	public Invoice createInvoice(String customerName, double amount) {
 		
-		int nextInvoiceNumber = getInvoices().keySet().stream()
-				.mapToInt(Integer::intValue).max().orElse(0) + 1;
-
 		if (getCustomers().containsKey(customerName)) {
-			Invoice invoice = new Invoice(nextInvoiceNumber, 
+			Invoice invoice = new Invoice(persistence.nextInvoiceNumber(), 
 					getCustomers().get(customerName), amount, 
 					LocalDate.now());
 			persistence.saveInvoice(invoice);
@@ -186,9 +184,7 @@ public class Billing {
 	 * Return a stream of all invoices for a given customer.
 	 */
 	public Stream<Invoice> getInvoicesForCustomer(Customer customer) {
-		return getInvoices().values().stream()
-				.filter(inv -> inv.getCustomer().equals(customer))
-				.sorted(compareByNumber);
+		return persistence.getInvoicesForCustomer(customer.getName());
 	}
 	
 	/**
@@ -213,9 +209,7 @@ public class Billing {
 	 * Return the volume of business (sum of all invoices) for a customer. 
 	 */
 	public double getVolumeForCustomer(Customer customer) {
-		return getInvoicesForCustomer(customer)
-				.mapToDouble(Invoice::getAmount)
-				.sum();
+		return persistence.getVolumeForCustomer(customer.getName());
 	}
 	
 	/**
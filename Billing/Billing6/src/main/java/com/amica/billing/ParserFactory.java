@@ -8,6 +8,7 @@ import java.util.logging.Level;
 import com.amica.billing.parse.CSVParser;
 import com.amica.billing.parse.FlatParser;
 import com.amica.billing.parse.Parser;
+import com.amica.billing.parse.SnapshotParser;
 import com.amica.esa.componentconfiguration.manager.ComponentConfigurationManager;
 import com.amica.escm.configuration.api.Configuration;
 
@@ -51,6 +52,7 @@ public class ParserFactory {
 	public static void resetParsers() {
 		parsers.put("csv", CSVParser::new);
 		parsers.put("flat", FlatParser::new);
+		parsers.put("snapshot", SnapshotParser::new);
 		parsers.put(null, CSVParser::new);
 
 		if (System.getProperty("env.name") != null) {
@@ -0,0 +1,216 @@
+package com.amica.billing;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Holds the data for the {@link Reporter}'s four reports, already in
+ * report order, and keeps it current by applying one changed customer or
+ * invoice at a time -- so that a change costs a few tree updates, rather
+ * than a fresh query and sort of the whole data set.
+ *
+ * Invoices are held by number, by customer name and then number, and, if
+ * overdue, by issue date and then number; each customer's volume is held in
+ * a ranking by descending volume and then name. An invoice that has been
+ * changed in place, as when it is paid, just moves in or out of the overdue
+ * set; if we see a new object for a known number, we first back out the old
+ * one. We sum a customer's volume afresh from its invoices whenever one of
+ * them changes, rather than keeping a running total that would drift.
+ *
+ * Queries return copies, in order, so that a report can be written from
+ * them while changes continue to arrive from other threads.
+ *
+ * @author Will Provost
+ */
+public class ReportModel {
+
+	/**
+	 * Overdue invoices are ordered by issue date; we break ties by number,
+	 * which is the order in which the query-based report would list them.
+	 */
+	public static final Comparator<Invoice> OVERDUE_ORDER =
+			Billing.compareByDate.thenComparing(Billing.compareByNumber);
+
+	/**
+	 * Customers' groups of invoices are ordered by name, so that the order
+	 * doesn't depend on how the customers happen to be stored or when their
+	 * first invoices arrived. The {@link Reporter} uses this for query-based
+	 * reports as well.
+	 */
+	public static final Comparator<Customer> CUSTOMER_ORDER =
+			Comparator.comparing(Customer::getName);
+
+	/**
+	 * Customers and their volumes are ordered by descending volume; we break 
+	 * ties by name, so that the order doesn't depend on how the customers
+	 * happen to be stored. The {@link Reporter} uses this for query-based
+	 * reports as well, so that both produce the same file.
+	 */
+	public static final Comparator<Map.Entry<Customer,Double>> VOLUME_ORDER =
+			Comparator.<Map.Entry<Customer,Double>,Double>comparing
+				(Map.Entry::getValue, Comparator.reverseOrder())
+			.thenComparing(entry -> entry.getKey().getName());
+
+	/**
+	 * One customer's place in the volume ranking. We replace it, rather
+	 * than change it, when the volume changes, so the tree stays in order.
+	 */
+	private static class Ranking 
+			extends AbstractMap.SimpleImmutableEntry<Customer,Double> {
+		public Ranking(Customer customer, double volume) {
+			super(customer, volume);
+		}
+	}
+
+	private LocalDate asOf;
+	private TreeMap<Integer,Invoice> byNumber = new TreeMap<>();
+	private TreeMap<Customer,TreeMap<Integer,Invoice>> byCustomer = 
+			new TreeMap<>(CUSTOMER_ORDER);
+	private TreeSet<Invoice> overdue = new TreeSet<>(OVERDUE_ORDER);
+	private Map<Customer,Ranking> rankings = new HashMap<>();
+	private TreeSet<Ranking> ranking = new TreeSet<>(VOLUME_ORDER);
+
+	/**
+	 * Builds the model from all of the customers and invoices that
+	 * the given {@link Billing} object holds now, considering invoices
+	 * overdue as of the given date.
+	 */
+	public ReportModel(Billing billing, LocalDate asOf) {
+		this.asOf = asOf;
+		billing.getCustomers().values().forEach(this::customerChanged);
+		billing.getInvoices().values().forEach(this::invoiceChanged);
+	}
+
+	/**
+	 * Builds the same model, but fills the by-number, by-customer, and 
+	 * overdue collections at the same time, on the given pool. We copy the
+	 * invoices once, and each task reads that copy into collections that 
+	 * only it touches; joining the tasks makes their work visible to us.
+	 */
+	public ReportModel(Billing billing, LocalDate asOf, ForkJoinPool pool) {
+		this.asOf = asOf;
+		List<Invoice> invoices = new ArrayList<>(billing.getInvoices().values());
+		Collection<Customer> customers = billing.getCustomers().values();
+		List<ForkJoinTask<?>> parts = List.of(
+			pool.submit(() -> invoices.forEach
+					(invoice -> byNumber.put(invoice.getNumber(), invoice))),
+			pool.submit(() -> invoices.stream()
+					.filter(invoice -> invoice.isOverdue(asOf))
+					.forEach(overdue::add)),
+			pool.submit(() -> {
+				invoices.forEach(invoice -> byCustomer.computeIfAbsent
+						(invoice.getCustomer(), k -> new TreeMap<>())
+						.put(invoice.getNumber(), invoice));
+				customers.forEach(this::sumVolume);
+				byCustomer.keySet().stream()
+						.filter(customer -> !rankings.containsKey(customer))
+						.forEach(this::sumVolume);
+			}));
+		parts.forEach(ForkJoinTask::join);
+	}
+
+	/**
+	 * Adds the customer to the volume ranking, if it's not already there.
+	 */
+	public synchronized void customerChanged(Customer customer) {
+		if (!rankings.containsKey(customer)) {
+			rank(customer, 0);
+		}
+	}
+
+	/**
+	 * Adds the invoice, or updates the rows for an invoice we already have.
+	 */
+	public synchronized void invoiceChanged(Invoice invoice) {
+		Invoice previous = byNumber.put(invoice.getNumber(), invoice);
+		if (previous != null) {
+			overdue.remove(previous);
+			if (previous != invoice) {
+				TreeMap<Integer,Invoice> group = byCustomer.get(previous.getCustomer());
+				group.remove(previous.getNumber());
+				if (group.isEmpty()) {
+					byCustomer.remove(previous.getCustomer());
+				}
+				sumVolume(previous.getCustomer());
+			}
+		}
+
+		if (previous != invoice) {
+			byCustomer.computeIfAbsent(invoice.getCustomer(), k -> new TreeMap<>())
+				.put(invoice.getNumber(), invoice);
+			sumVolume(invoice.getCustomer());
+		}
+		if (invoice.isOverdue(asOf)) {
+			overdue.add(invoice);
+		}
+	}
+
+	/**
+	 * Sums the customer's invoice amounts in number order, as the
+	 * query-based report would, and re-ranks the customer.
+	 */
+	private void sumVolume(Customer customer) {
+		double volume = 0;
+		TreeMap<Integer,Invoice> group = byCustomer.get(customer);
+		if (group != null) {
+			for (Invoice invoice : group.values()) {
+				volume += invoice.getAmount();
+			}
+		}
+		rank(customer, volume);
+	}
+
+	private void rank(Customer customer, double volume) {
+		Ranking previous = rankings.get(customer);
+		if (previous != null) {
+			ranking.remove(previous);
+		}
+		Ranking replacement = new Ranking(customer, volume);
+		rankings.put(customer, replacement);
+		ranking.add(replacement);
+	}
+
+	/**
+	 * Returns all invoices, ordered by number.
+	 */
+	public synchronized List<Invoice> getInvoicesOrderedByNumber() {
+		return new ArrayList<>(byNumber.values());
+	}
+
+	/**
+	 * Returns customers that have invoices, ordered by name, with their 
+	 * invoices ordered by number.
+	 */
+	public synchronized Map<Customer,List<Invoice>> getInvoicesGroupedByCustomer() {
+		Map<Customer,List<Invoice>> result = new LinkedHashMap<>();
+		byCustomer.forEach((customer, group) ->
+				result.put(customer, new ArrayList<>(group.values())));
+		return result;
+	}
+
+	/**
+	 * Returns overdue invoices, ordered by issue date.
+	 */
+	public synchronized List<Invoice> getOverdueInvoices() {
+		return new ArrayList<>(overdue);
+	}
+
+	/**
+	 * Returns all customers and their volumes of business,
+	 * in descending order of volume.
+	 */
+	public synchronized List<Map.Entry<Customer,Double>> getCustomersAndVolume() {
+		return new ArrayList<>(ranking);
+	}
+}
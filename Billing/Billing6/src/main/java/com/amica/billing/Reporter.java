@@ -1,18 +1,39 @@
 package com.amica.billing;
 
-import java.io.FileWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.amica.billing.parse.GroupCommit;
+
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.java.Log;
@@ -20,6 +41,24 @@ import lombok.extern.java.Log;
 /**
  * This class formats plain-text reports using a few of the queries
  * available in the {@link Billing} class.
+ * 
+ * By default, reports are regenerated on the thread that makes each change.
+ * Given a debounce window, the reporter instead queues a request for each
+ * affected report, and regenerates it once at the end of the window,
+ * however many changes arrived in the meantime; this work is done on 
+ * a dedicated thread. Call {@link #flush} to wait for reports to settle.
+ * 
+ * In incremental mode, the reporter keeps a {@link ReportModel} up to date
+ * with each change, and writes reports from that, in order, instead of
+ * querying and sorting the whole data set for each one.
+ * 
+ * Each report is written row by row, through a large buffer, so the text of
+ * a report is never held in memory all at once. Reports can be compressed
+ * with gzip, in which case each filename gets a .gz extension.
+ * 
+ * When an invoice changes, all four reports are generated together by
+ * {@link #reportAll}, from a single pass over the invoices, and written
+ * at the same time.
 
  * @author Will Provost
  */
@@ -38,16 +77,26 @@ public class Reporter {
 			"overdue_invoices.txt";
 	public static final String FILENAME_CUSTOMERS_AND_VOLUME = 
 			"customer_and_volume.txt";
+	public static final String COMPRESSED_EXTENSION = ".gz";
+	
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	
+	private static final int REPORTS = 4;
+	
+	private static final DateTimeFormatter DATE_FORMATTER = 
+			DateTimeFormatter.ofPattern("MM/dd/yyyy");
 	
 	/**
-	 * Factory for a date formatter that we use consistently in a few reports. 
+	 * Provides the date formatter that we use consistently in a few reports. 
 	 */
 	public static DateTimeFormatter getFormatter() {
-		return DateTimeFormatter.ofPattern("MM/dd/yyyy");
+		return DATE_FORMATTER;
 	}
 	
 	/**
 	 * Helper method to format an invoice as a row in a table. 
+	 * The reports themselves use a {@link RowFormatter}, which produces
+	 * the same text without the overhead of format patterns.
 	 */
 	public static String formatInvoice(Invoice invoice) {
 		DateTimeFormatter formatter = getFormatter();
@@ -75,9 +124,30 @@ public class Reporter {
 	@Setter
 	private Path outputFolder;
 	
-	@Setter
 	private LocalDate asOf = LocalDate.of(2022, 1, 8);
 	
+	@Value("${Reporter.bufferSize:" + DEFAULT_BUFFER_SIZE + "}")
+	@Setter
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+	
+	@Value("${Reporter.compressed:false}")
+	@Setter
+	private boolean compressed;
+	
+	private Duration debounceWindow = Duration.ZERO;
+	
+	@Getter(AccessLevel.NONE)
+	private volatile ReportModel model;
+	
+	@Getter(AccessLevel.NONE)
+	private ScheduledExecutorService scheduler;
+	@Getter(AccessLevel.NONE)
+	private volatile ForkJoinPool pool;
+	@Getter(AccessLevel.NONE)
+	private GroupCommit allReports;
+	@Getter(AccessLevel.NONE)
+	private GroupCommit customersAndVolume;
+	
 	/**
 	 * Create a reporter object with reference to a {@link Billing} object,
 	 * a target folder to contain generated reports, and a date based on which
@@ -85,27 +155,193 @@ public class Reporter {
 	 */
 	public Reporter(Billing billing) {
 		this.billing = billing;
+		setDebounceWindow(Duration.ZERO);
 		billing.addCustomerListener(this::onCustomerChanged);
 		billing.addInvoiceListener(this::onInvoiceChanged);
 	}
 	
+	/**
+	 * Sets the window over which changes are coalesced, writing any reports 
+	 * still pending under the old window first. A zero window means that 
+	 * reports are generated immediately, on the caller's thread.
+	 */
+	public synchronized void setDebounceWindow(Duration debounceWindow) {
+		close();
+		this.debounceWindow = debounceWindow;
+		if (!debounceWindow.isZero()) {
+			scheduler = GroupCommit.createScheduler("Reporter");
+		}
+		pool = new ForkJoinPool(REPORTS);
+		allReports = new GroupCommit("reports", 
+				this::reportAll, debounceWindow, scheduler);
+		customersAndVolume = new GroupCommit(FILENAME_CUSTOMERS_AND_VOLUME, 
+				this::reportCustomersAndVolume, debounceWindow, scheduler);
+	}
+	
+	@Value("${Reporter.debounceMillis:0}")
+	public void setDebounceMillis(long millis) {
+		setDebounceWindow(Duration.ofMillis(millis));
+	}
+	
+	/**
+	 * Turns incremental mode on, building a model from the current data, 
+	 * or off, dropping the model.
+	 */
+	@Value("${Reporter.incremental:false}")
+	public synchronized void setIncremental(boolean incremental) {
+		model = incremental ? new ReportModel(billing, asOf) : null;
+	}
+	
+	public boolean isIncremental() {
+		return model != null;
+	}
+	
+	/**
+	 * Sets the date as of which we find overdue invoices; in incremental
+	 * mode, this rebuilds the model.
+	 */
+	public synchronized void setAsOf(LocalDate asOf) {
+		this.asOf = asOf;
+		if (model != null) {
+			model = new ReportModel(billing, asOf);
+		}
+	}
+	
 	/**
 	 * Handles the customer-change event fired by the billing object.
 	 * This triggers the re-generation of the customers-and-volume report. 
 	 */
-	private void onCustomerChanged(Customer customer) {
-		reportCustomersAndVolume();
+	private synchronized void onCustomerChanged(Customer customer) {
+		if (model != null) {
+			model.customerChanged(customer);
+		}
+		customersAndVolume.request();
 	}
 	
 	/**
 	 * Handles the invoice-change event fired by the billing object.
 	 * This triggers the re-generation of all reports. 
 	 */
-	private void onInvoiceChanged(Invoice invoice) {
-		reportInvoicesOrderedByNumber();
-		reportInvoicesGroupedByCustomer();
-		reportOverdueInvoices();
-		reportCustomersAndVolume();
+	private synchronized void onInvoiceChanged(Invoice invoice) {
+		if (model != null) {
+			model.invoiceChanged(invoice);
+		}
+		allReports.request();
+	}
+	
+	/**
+	 * Regenerates any reports still waiting out the debounce window, 
+	 * and waits for any that are being regenerated now.
+	 */
+	public synchronized void flush() {
+		allReports.flush();
+		customersAndVolume.flush();
+	}
+	
+	/**
+	 * Regenerates any pending reports, and stops the background thread.
+	 */
+	@PreDestroy
+	public synchronized void close() {
+		for (GroupCommit commit : new GroupCommit[] 
+				{ allReports, customersAndVolume }) {
+			if (commit != null) {
+				commit.close();
+			}
+		}
+		if (scheduler != null) {
+			scheduler.shutdown();
+			scheduler = null;
+		}
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+	
+	/**
+	 * Helper method to get all invoices, ordered by number,
+	 * from the model if we have one, or else from the billing object.
+	 */
+	private Stream<Invoice> getInvoicesOrderedByNumber() {
+		ReportModel model = this.model;
+		return model != null 
+				? model.getInvoicesOrderedByNumber().stream()
+				: billing.getInvoicesOrderedByNumber();
+	}
+	
+	/**
+	 * Helper method to get invoices grouped by customer,
+	 * with customers ordered by name, as the model keeps them.
+	 */
+	private Map<Customer,List<Invoice>> getInvoicesGroupedByCustomer() {
+		ReportModel model = this.model;
+		if (model != null) {
+			return model.getInvoicesGroupedByCustomer();
+		}
+		
+		Map<Customer,List<Invoice>> result = 
+				new TreeMap<>(ReportModel.CUSTOMER_ORDER);
+		result.putAll(billing.getInvoicesGroupedByCustomer());
+		return result;
+	}
+	
+	/**
+	 * Helper method to get overdue invoices, ordered by issue date.
+	 */
+	private Stream<Invoice> getOverdueInvoices() {
+		ReportModel model = this.model;
+		return model != null 
+				? model.getOverdueInvoices().stream()
+				: billing.getOverdueInvoices(asOf);
+	}
+	
+	/**
+	 * Helper method to get customers and their volumes of business,
+	 * in descending order of volume and then by name, as the model keeps them.
+	 */
+	private Stream<Entry<Customer,Double>> getCustomersAndVolume() {
+		ReportModel model = this.model;
+		return model != null 
+				? model.getCustomersAndVolume().stream()
+				: billing.getCustomersAndVolumeStream().map(cv -> 
+					Map.entry(cv.getCustomer(), cv.getVolume()))
+						.sorted(ReportModel.VOLUME_ORDER);
+	}
+	
+	/**
+	 * Helper method to open a buffered writer on a file channel, 
+	 * compressing the content if so configured.
+	 */
+	private Writer openFile(String filename) throws IOException {
+		Path path = outputFolder.resolve(compressed 
+				? filename + COMPRESSED_EXTENSION : filename);
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		Writer writer = compressed
+				? new OutputStreamWriter(new GZIPOutputStream(Channels
+					.newOutputStream(channel), bufferSize), Charset.defaultCharset())
+				: Channels.newWriter(channel, Charset.defaultCharset());
+		return new BufferedWriter(writer, bufferSize);
+	}
+	
+	/**
+	 * Helper method to write invoices as rows, one at a time, 
+	 * separated by newlines and followed by a line separator.
+	 */
+	private static void printRows(PrintWriter out, Stream<Invoice> invoices,
+			BiConsumer<StringBuilder,Invoice> formatter) {
+		StringBuilder row = new StringBuilder();
+		Iterator<Invoice> iterator = invoices.iterator();
+		while (iterator.hasNext()) {
+			if (row.length() != 0) {
+				row.setLength(0);
+				row.append('\n');
+			}
+			formatter.accept(row, iterator.next());
+			out.append(row);
+		}
+		out.println();
 	}
 	
 	/**
@@ -131,8 +367,7 @@ public class Reporter {
 			return new NonCloser(); 
 		} else {
 			try {
-				return new PrintWriter(new FileWriter
-						(outputFolder.resolve(filename).toFile()));
+				return new PrintWriter(openFile(filename));
 			} catch (Exception ex) {
 				
 				log.log(Level.SEVERE, ex,
@@ -147,6 +382,10 @@ public class Reporter {
 	 * Generates a report of all invoices, ordered by number.
 	 */
 	public void reportInvoicesOrderedByNumber() {
+		writeInvoicesOrderedByNumber(getInvoicesOrderedByNumber());
+	}
+	
+	private void writeInvoicesOrderedByNumber(Stream<Invoice> invoices) {
 		try ( PrintWriter out = getWriter(FILENAME_INVOICES_BY_NUMBER); ) {
 			out.println("All invoices, ordered by invoice number");
 			out.println("=".repeat(66));
@@ -156,9 +395,8 @@ public class Reporter {
 			out.println("-".repeat(4) + "  " + "-".repeat(24) + "  " + 
 					"-".repeat(10) + "  " + "-".repeat(10) + "  " + "-".repeat(10));
 			
-			out.println(billing.getInvoicesOrderedByNumber()
-					.map(Reporter::formatInvoice)
-					.collect(Collectors.joining("\n")));
+			RowFormatter rows = new RowFormatter();
+			printRows(out, invoices, rows::appendInvoice);
 		}
 	}
 	
@@ -167,6 +405,10 @@ public class Reporter {
 	 * then ordered by number.
 	 */
 	public void reportInvoicesGroupedByCustomer() {
+		writeInvoicesGroupedByCustomer(getInvoicesGroupedByCustomer());
+	}
+	
+	private void writeInvoicesGroupedByCustomer(Map<Customer,List<Invoice>> data) {
 		try ( PrintWriter out = getWriter(FILENAME_INVOICES_BY_CUSTOMER); ) {
 			out.println("All invoices, grouped by customer and ordered by invoice number");
 			out.println("=".repeat(66));
@@ -176,13 +418,11 @@ public class Reporter {
 			out.println("-".repeat(4) + "  " + "-".repeat(24) + "  " + 
 					"-".repeat(10) + "  " + "-".repeat(10) + "  " + "-".repeat(10));
 			
-			Map<Customer,List<Invoice>> data = 
-					billing.getInvoicesGroupedByCustomer();
+			RowFormatter rows = new RowFormatter();
 			for (Customer customer : data.keySet()) {
 				out.println();
 				out.println(customer.getName());
-				out.println(data.get(customer).stream().map(Reporter::formatInvoice)
-						.collect(Collectors.joining("\n")));
+				printRows(out, data.get(customer).stream(), rows::appendInvoice);
 			}
 		}
 	}
@@ -191,6 +431,10 @@ public class Reporter {
 	 * Generates a report of overdue invoices, ordered by invoice date.
 	 */
 	public void reportOverdueInvoices() {
+		writeOverdueInvoices(getOverdueInvoices());
+	}
+	
+	private void writeOverdueInvoices(Stream<Invoice> invoices) {
 		try ( PrintWriter out = getWriter(FILENAME_OVERDUE_INVOICES); ) {
 			out.println("Overdue invoices, ordered by issue date");
 			out.println("=".repeat(78));
@@ -201,16 +445,20 @@ public class Reporter {
 					"-".repeat(10) + "  " + "-".repeat(10) + "  " + 
 					"-".repeat(10) + "  " + "-".repeat(10));
 			
-			out.println(billing.getOverdueInvoices(asOf)
-					.map(Reporter::formatOverdueInvoice)
-					.collect(Collectors.joining("\n")));
-		}
+			RowFormatter rows = new RowFormatter();
+			printRows(out, invoices, rows::appendOverdueInvoice);
 		}
+	}
 	
 	/**
 	 * Generates a report of all customers and their total volume of business.
 	 */
 	public void reportCustomersAndVolume() {
+		writeCustomersAndVolume(getCustomersAndVolume());
+	}
+	
+	private void writeCustomersAndVolume
+			(Stream<Entry<Customer,Double>> customersAndVolume) {
 		try ( PrintWriter out = getWriter(FILENAME_CUSTOMERS_AND_VOLUME); ) {
 			out.println("All customers and total volume of business");
 			out.println("=".repeat(66));
@@ -219,9 +467,9 @@ public class Reporter {
 			out.println("-".repeat(24) + "  " + "-".repeat(12));
 
 			// Using the method that returns a stream -- results are ordered:
-			billing.getCustomersAndVolumeStream()
+			customersAndVolume
 					.forEach(cv -> out.format("%-24s  %,12.2f%n",
-							cv.getCustomer().getName(), cv.getVolume()));
+							cv.getKey().getName(), cv.getValue()));
 			
 			// Using the method that returns a map -- results are not ordered:
 //			for (Map.Entry<Customer,Double> entry : 
@@ -231,4 +479,49 @@ public class Reporter {
 //			}
 		}
 	}
+	
+	/**
+	 * Generates all four reports. We gather the data for all of them in one
+	 * pass over the invoices, by building a {@link ReportModel} on our pool
+	 * -- or, in incremental mode, use the one we have -- and then write the
+	 * reports in parallel, returning when all four are written. If any of
+	 * them fails, we still wait for the others before throwing.
+	 */
+	public void reportAll() {
+		ForkJoinPool pool = this.pool;
+		ReportModel model = this.model;
+		ReportModel data = model != null ? model 
+				: pool != null ? new ReportModel(billing, asOf, pool) 
+				: new ReportModel(billing, asOf);
+		List<Runnable> reports = List.of(
+			() -> writeInvoicesOrderedByNumber
+					(data.getInvoicesOrderedByNumber().stream()),
+			() -> writeInvoicesGroupedByCustomer
+					(data.getInvoicesGroupedByCustomer()),
+			() -> writeOverdueInvoices(data.getOverdueInvoices().stream()),
+			() -> writeCustomersAndVolume
+					(data.getCustomersAndVolume().stream()));
+		
+		if (DIVERT_TO_SYSOUT || pool == null) {
+			reports.forEach(Runnable::run);
+		} else {
+			List<ForkJoinTask<?>> tasks = reports.stream()
+					.<ForkJoinTask<?>>map(pool::submit).toList();
+			RuntimeException failure = null;
+			for (ForkJoinTask<?> task : tasks) {
+				try {
+					task.join();
+				} catch (RuntimeException ex) {
+					if (failure == null) {
+						failure = ex;
+					} else {
+						failure.addSuppressed(ex);
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
 }
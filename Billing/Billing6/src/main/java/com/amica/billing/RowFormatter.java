@@ -0,0 +1,220 @@
+package com.amica.billing;
+
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Formats invoices as rows in the {@link Reporter}'s tables, appending
+ * fixed-width columns to a reusable {@link StringBuilder}. The output is
+ * the same as {@link Reporter#formatInvoice} and
+ * {@link Reporter#formatOverdueInvoice} would produce, but we render
+ * numbers, dates, and grouped two-decimal amounts by hand, rather than
+ * parsing format patterns and building intermediate strings for each row.
+ *
+ * As with {@link com.amica.billing.parse.ByteFields}, only the plain forms
+ * of values are handled this way: an amount that isn't a whole number of
+ * cents, a date outside of years 1 to 9999, or a locale whose number
+ * formatting we can't match, is handed to the same JDK method that the
+ * reporter uses. An instance keeps scratch space, and so is not
+ * thread-safe; use one per report.
+ *
+ * @author Will Provost
+ */
+public class RowFormatter {
+
+	public static final int NUMBER_WIDTH = 4;
+	public static final int NAME_WIDTH = 24;
+	public static final int DATE_WIDTH = 10;
+	public static final int AMOUNT_WIDTH = 10;
+	public static final String COLUMN_SEPARATOR = "  ";
+
+	private static final double MAX_FAST_AMOUNT = 1e11;
+	private static final int GROUP_SIZE = 3;
+
+	private Locale locale;
+	private char zeroDigit;
+	private char groupingSeparator;
+	private char decimalSeparator;
+	private boolean plainLocale;
+	private StringBuilder row = new StringBuilder();
+	private char[] scratch = new char[32];
+
+	/**
+	 * Creates a formatter for the default locale, as used by
+	 * {@link String#format(String, Object...)}.
+	 */
+	public RowFormatter() {
+		this(Locale.getDefault(Locale.Category.FORMAT));
+	}
+
+	/**
+	 * Creates a formatter for the given locale. We check our own rendering
+	 * of a few sample numbers against the JDK's, and if any of them differ,
+	 * we let the JDK format all numbers from then on.
+	 */
+	public RowFormatter(Locale locale) {
+		this.locale = locale;
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+		zeroDigit = symbols.getZeroDigit();
+		groupingSeparator = symbols.getGroupingSeparator();
+		decimalSeparator = symbols.getDecimalSeparator();
+
+		plainLocale = true;
+		StringBuilder sample = new StringBuilder();
+		for (double amount : new double[] { 1234567.89, -1000.5, 0 }) {
+			sample.setLength(0);
+			appendAmount(sample, amount);
+			plainLocale &= sample.toString().equals(String.format
+					(locale, "%,10.2f", amount));
+		}
+		for (int number : new int[] { 7, -1234567 }) {
+			sample.setLength(0);
+			appendNumber(sample, number);
+			plainLocale &= sample.toString().equals(String.format
+					(locale, "%4d", number));
+		}
+	}
+
+	/**
+	 * Appends spaces to bring a column that started at the given position
+	 * up to the given width.
+	 */
+	private static void pad(StringBuilder out, int start, int width) {
+		for (int i = out.length() - start; i < width; ++i) {
+			out.append(' ');
+		}
+	}
+
+	/**
+	 * Writes the digits of the given non-negative value into the scratch
+	 * space, backwards from the given position, inserting a grouping
+	 * separator every three digits if asked; returns the new position.
+	 */
+	private int digits(long value, int position, boolean grouped) {
+		int count = 0;
+		do {
+			if (grouped && count != 0 && count % GROUP_SIZE == 0) {
+				scratch[--position] = groupingSeparator;
+			}
+			scratch[--position] = (char) (zeroDigit + value % 10);
+			value /= 10;
+			++count;
+		} while (value != 0);
+		return position;
+	}
+
+	/**
+	 * Appends the invoice number, right-aligned, as with "%4d".
+	 */
+	public void appendNumber(StringBuilder out, int number) {
+		if (plainLocale) {
+			int position = digits(Math.abs((long) number), scratch.length, false);
+			if (number < 0) {
+				scratch[--position] = '-';
+			}
+			for (int i = scratch.length - position; i < NUMBER_WIDTH; ++i) {
+				out.append(' ');
+			}
+			out.append(scratch, position, scratch.length - position);
+		} else {
+			out.append(String.format(locale, "%4d", number));
+		}
+	}
+
+	/**
+	 * Appends the amount, grouped, with two decimal places, and
+	 * right-aligned, as with "%,10.2f".
+	 */
+	public void appendAmount(StringBuilder out, double amount) {
+		long cents = Math.round(amount * 100);
+		if (plainLocale && Math.abs(amount) < MAX_FAST_AMOUNT &&
+				cents / 100.0 == amount) {
+			long magnitude = Math.abs(cents);
+			int position = digits(magnitude % 100, scratch.length, false);
+			if (magnitude % 100 < 10) {
+				scratch[--position] = zeroDigit;
+			}
+			scratch[--position] = decimalSeparator;
+			position = digits(magnitude / 100, position, true);
+			if (Math.copySign(1.0, amount) < 0) {
+				scratch[--position] = '-';
+			}
+			for (int i = scratch.length - position; i < AMOUNT_WIDTH; ++i) {
+				out.append(' ');
+			}
+			out.append(scratch, position, scratch.length - position);
+		} else {
+			out.append(String.format(locale, "%,10.2f", amount));
+		}
+	}
+
+	/**
+	 * Appends the date as MM/dd/yyyy, or, if null, a blank column.
+	 */
+	public void appendDate(StringBuilder out, LocalDate date) {
+		if (date == null) {
+			pad(out, out.length(), DATE_WIDTH);
+		} else if (date.getYear() >= 1 && date.getYear() <= 9999) {
+			int month = date.getMonthValue();
+			int day = date.getDayOfMonth();
+			int year = date.getYear();
+			out.append((char) ('0' + month / 10)).append((char) ('0' + month % 10))
+				.append('/')
+				.append((char) ('0' + day / 10)).append((char) ('0' + day % 10))
+				.append('/')
+				.append((char) ('0' + year / 1000))
+				.append((char) ('0' + year / 100 % 10))
+				.append((char) ('0' + year / 10 % 10))
+				.append((char) ('0' + year % 10));
+		} else {
+			out.append(Reporter.getFormatter().format(date));
+		}
+	}
+
+	/**
+	 * Appends the invoice as a row in a table.
+	 */
+	public StringBuilder appendInvoice(StringBuilder out, Invoice invoice) {
+		appendNumber(out, invoice.getNumber());
+		out.append(COLUMN_SEPARATOR);
+		int start = out.length();
+		out.append(invoice.getCustomer().getName());
+		pad(out, start, NAME_WIDTH);
+		out.append(COLUMN_SEPARATOR);
+		appendDate(out, invoice.getIssueDate());
+		out.append(COLUMN_SEPARATOR);
+		appendAmount(out, invoice.getAmount());
+		out.append(COLUMN_SEPARATOR);
+		appendDate(out, invoice.getPaidDate().orElse(null));
+		return out;
+	}
+
+	/**
+	 * Appends the invoice as a row in a table, with a column for the date
+	 * on which it was or is due.
+	 */
+	public StringBuilder appendOverdueInvoice(StringBuilder out, Invoice invoice) {
+		appendInvoice(out, invoice);
+		out.append(COLUMN_SEPARATOR);
+		appendDate(out, invoice.getDueDate());
+		return out;
+	}
+
+	/**
+	 * Returns the invoice as a row in a table, formatted in a buffer
+	 * that we reuse from one row to the next.
+	 */
+	public String formatInvoice(Invoice invoice) {
+		row.setLength(0);
+		return appendInvoice(row, invoice).toString();
+	}
+
+	/**
+	 * Returns the invoice as a row in a table, with the due date.
+	 */
+	public String formatOverdueInvoice(Invoice invoice) {
+		row.setLength(0);
+		return appendOverdueInvoice(row, invoice).toString();
+	}
+}
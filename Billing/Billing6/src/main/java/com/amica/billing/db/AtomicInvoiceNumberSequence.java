@@ -0,0 +1,33 @@
+package com.amica.billing.db;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory {@link InvoiceNumberSequence}, suitable when this process
+ * is the only one creating invoices in the data set.
+ *
+ * @author Will Provost
+ */
+public class AtomicInvoiceNumberSequence implements InvoiceNumberSequence {
+
+	private AtomicInteger highest;
+	
+	/**
+	 * Provide the highest invoice number already in use, or zero.
+	 */
+	public AtomicInvoiceNumberSequence(int highest) {
+		this.highest = new AtomicInteger(highest);
+	}
+	
+	public int allocateBlock(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException
+				("Can't allocate a block of " + count + " invoice numbers.");
+		}
+		return highest.addAndGet(count) - count + 1;
+	}
+	
+	public void observe(int number) {
+		highest.accumulateAndGet(number, Math::max);
+	}
+}
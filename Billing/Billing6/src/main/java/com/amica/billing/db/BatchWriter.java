@@ -0,0 +1,21 @@
+package com.amica.billing.db;
+
+import java.util.List;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+
+/**
+ * A store that can take batches of records straight from a stream,
+ * without caching them, as for a {@link StreamingMigration}. 
+ * Writing a record that's already in the store replaces it, 
+ * so a batch can safely be written again.
+ * 
+ * @author Will Provost
+ */
+public interface BatchWriter {
+
+	public void writeCustomers(List<Customer> batch);
+	
+	public void writeInvoices(List<Invoice> batch);
+}
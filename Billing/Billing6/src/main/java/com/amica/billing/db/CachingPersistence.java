@@ -1,6 +1,12 @@
 package com.amica.billing.db;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -8,40 +14,120 @@ import java.util.stream.Stream;
 import com.amica.billing.Customer;
 import com.amica.billing.Invoice;
 
+import org.springframework.beans.factory.annotation.Value;
+
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 
 
 /**
  * Base implementation that sets up a write-through cache using two maps.
  * Derived classes must implement the "read" and "write" methods
  * and this class will assure caching and updates on all write operations.
+ * The maps are concurrent, and invoice numbers come from an
+ * {@link InvoiceNumberSequence} that is seeded once, at load time.
+ * We also maintain a {@link CustomerInvoiceIndex} for customer-scoped queries.
+ * Bulk saves are written in batches of a configurable size, through
+ * helper methods that derived classes can override to write each batch
+ * in one operation.
  * 
  * @author Will Provost
  */
 @Getter
 public abstract class CachingPersistence implements Persistence {
 
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
 	private Map<String,Customer> customers;
 	private Map<Integer,Invoice> invoices;
+	
+	@Getter(AccessLevel.NONE)
+	private InvoiceNumberSequence invoiceNumbers;
+	
+	@Getter(AccessLevel.NONE)
+	private CustomerInvoiceIndex invoicesByCustomer;
+	
+	@Value("${Persistence.batchSize:" + DEFAULT_BATCH_SIZE + "}")
+	@Setter
+	private int batchSize = DEFAULT_BATCH_SIZE;
 
 	protected abstract Stream<Customer> readCustomers();
 	protected abstract Stream<Invoice> readInvoices();
 	protected abstract void writeCustomer(Customer customer);
 	protected abstract void writeInvoice(Invoice invoice);
 	
+	/**
+	 * Writes a batch of customers that are already in the cache.
+	 * By default we write them one at a time.
+	 */
+	protected void writeCustomers(List<Customer> batch) {
+		batch.forEach(this::writeCustomer);
+	}
+	
+	/**
+	 * Writes a batch of invoices that are already in the cache.
+	 * By default we write them one at a time.
+	 */
+	protected void writeInvoices(List<Invoice> batch) {
+		batch.forEach(this::writeInvoice);
+	}
+	
+	/**
+	 * Creates the sequence of invoice numbers, given the highest number 
+	 * found when loading. Derived classes can override this to share the
+	 * sequence with other processes.
+	 */
+	protected InvoiceNumberSequence createInvoiceNumberSequence(int highest) {
+		return new AtomicInvoiceNumberSequence(highest);
+	}
+	
+	private static <T> BinaryOperator<T> duplicateKey() {
+		return (a, b) -> { 
+			throw new IllegalStateException("Duplicate key: " + a); 
+		};
+	}
+	
 	/**
 	 * Compiles maps of loaded data based on streams returned by
-	 * helper methods.
+	 * helper methods, and seeds the invoice-number sequence.
+	 * If the invoice stream is parallel, we collect it concurrently.
 	 */
 	public void load() {
 		try ( Stream<Customer> customerStream = readCustomers(); ) {
 			customers = customerStream.collect(Collectors.toMap
-					(Customer::getName, Function.identity()));
+					(Customer::getName, Function.identity(), 
+						duplicateKey(), ConcurrentHashMap::new));
 		}
 		try ( Stream<Invoice> invoiceStream = readInvoices(); ) {
-			invoices = invoiceStream.collect(Collectors.toMap
-					(Invoice::getNumber, Function.identity()));
+			invoices = invoiceStream.isParallel()
+				? invoiceStream.collect(Collectors.toConcurrentMap
+					(Invoice::getNumber, Function.identity(),
+						duplicateKey(), ConcurrentHashMap::new))
+				: invoiceStream.collect(Collectors.toMap
+					(Invoice::getNumber, Function.identity(),
+						duplicateKey(), ConcurrentHashMap::new));
 		}
+		invoicesByCustomer = new CustomerInvoiceIndex();
+		invoices.values().forEach(invoicesByCustomer::put);
+		invoiceNumbers = createInvoiceNumberSequence(invoices.keySet().stream()
+				.mapToInt(Integer::intValue).max().orElse(0));
+	}
+	
+	public int nextInvoiceNumber() {
+		return invoiceNumbers.next();
+	}
+	
+	public int allocateInvoiceNumbers(int count) {
+		return invoiceNumbers.allocateBlock(count);
+	}
+	
+	public Stream<Invoice> getInvoicesForCustomer(String customerName) {
+		return invoicesByCustomer.getInvoices(customerName);
+	}
+	
+	public double getVolumeForCustomer(String customerName) {
+		return invoicesByCustomer.getVolume(customerName);
 	}
 	
 	/**
@@ -56,7 +142,51 @@ public abstract class CachingPersistence implements Persistence {
 	 * Updates the cache and calls the helper method.
 	 */
 	public void saveInvoice(Invoice invoice) {
-		invoices.put(invoice.getNumber(), invoice);
+		cacheInvoice(invoice);
 		writeInvoice(invoice);
 	}
+	
+	private void cacheInvoice(Invoice invoice) {
+		invoices.put(invoice.getNumber(), invoice);
+		invoicesByCustomer.put(invoice);
+		invoiceNumbers.observe(invoice.getNumber());
+	}
+	
+	/**
+	 * Splits the given items into lists of at most the batch size,
+	 * and passes each list to the given action, in order.
+	 */
+	private <T> void forEachBatch(Collection<T> items, Consumer<List<T>> action) {
+		List<T> batch = new ArrayList<>(Math.min(batchSize, items.size()));
+		for (T item : items) {
+			batch.add(item);
+			if (batch.size() == batchSize) {
+				action.accept(batch);
+				batch = new ArrayList<>(batchSize);
+			}
+		}
+		if (!batch.isEmpty()) {
+			action.accept(batch);
+		}
+	}
+	
+	/**
+	 * Updates the cache and calls the helper method, a batch at a time.
+	 */
+	public void saveAllCustomers(Collection<Customer> toSave) {
+		forEachBatch(toSave, batch -> {
+			batch.forEach(customer -> customers.put(customer.getName(), customer));
+			writeCustomers(batch);
+		});
+	}
+	
+	/**
+	 * Updates the cache and calls the helper method, a batch at a time.
+	 */
+	public void saveAllInvoices(Collection<Invoice> toSave) {
+		forEachBatch(toSave, batch -> {
+			batch.forEach(this::cacheInvoice);
+			writeInvoices(batch);
+		});
+	}
 }
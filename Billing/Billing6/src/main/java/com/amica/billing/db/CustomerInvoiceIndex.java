@@ -0,0 +1,91 @@
+package com.amica.billing.db;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import com.amica.billing.Invoice;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Secondary index from customer name to that customer's invoices, 
+ * ordered by number, with each customer's volume of business. This spares
+ * customer-scoped queries a scan of all invoices. We sum a customer's volume
+ * afresh whenever its invoices change, rather than adding and subtracting
+ * amounts from a running total, which would drift in floating point.
+ * 
+ * Updates are serialized; queries take no locks. We remember the customer 
+ * and amount under which each invoice was indexed, because an invoice
+ * may be modified in place before it is saved again.
+ * 
+ * @author Will Provost
+ */
+public class CustomerInvoiceIndex {
+
+	@AllArgsConstructor
+	private static class Entry {
+		private String customerName;
+		private double amount;
+	}
+	
+	private Map<String,NavigableMap<Integer,Invoice>> invoicesByCustomer = 
+			new ConcurrentHashMap<>();
+	private Map<String,Double> volumeByCustomer = new ConcurrentHashMap<>();
+	private Map<Integer,Entry> entries = new ConcurrentHashMap<>();
+	
+	/**
+	 * Adds the invoice to the index, or updates it if we already
+	 * have an invoice with the same number.
+	 */
+	public synchronized void put(Invoice invoice) {
+		Entry previous = entries.get(invoice.getNumber());
+		String customerName = invoice.getCustomer().getName();
+		if (previous != null && !previous.customerName.equals(customerName)) {
+			invoicesByCustomer.get(previous.customerName)
+					.remove(invoice.getNumber());
+		}
+		
+		invoicesByCustomer.computeIfAbsent(customerName, 
+				k -> new ConcurrentSkipListMap<>()).put(invoice.getNumber(), invoice);
+		entries.put(invoice.getNumber(), 
+				new Entry(customerName, invoice.getAmount()));
+		
+		if (previous != null && !previous.customerName.equals(customerName)) {
+			sumVolume(previous.customerName);
+		}
+		if (previous == null || previous.amount != invoice.getAmount() ||
+				!previous.customerName.equals(customerName)) {
+			sumVolume(customerName);
+		}
+	}
+	
+	/**
+	 * Sums the amounts under which the customer's invoices were indexed.
+	 */
+	private void sumVolume(String customerName) {
+		double volume = 0;
+		for (Integer number : invoicesByCustomer.get(customerName).keySet()) {
+			volume += entries.get(number).amount;
+		}
+		volumeByCustomer.put(customerName, volume);
+	}
+	
+	/**
+	 * Returns the customer's invoices, ordered by number.
+	 */
+	public Stream<Invoice> getInvoices(String customerName) {
+		NavigableMap<Integer,Invoice> invoices = 
+				invoicesByCustomer.get(customerName);
+		return invoices != null ? invoices.values().stream() : Stream.empty();
+	}
+	
+	/**
+	 * Returns the sum of the customer's invoice amounts.
+	 */
+	public double getVolume(String customerName) {
+		return volumeByCustomer.getOrDefault(customerName, 0.0);
+	}
+}
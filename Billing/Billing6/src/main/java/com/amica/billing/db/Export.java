@@ -1,18 +1,40 @@
 package com.amica.billing.db;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.amica.billing.db.mongo.MongoPersistence;
-import com.amica.billing.parse.ParserPersistence;
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.ParserFactory;
+import com.amica.billing.parse.Parser;
 
 import lombok.Setter;
 
 /**
- * Component that can replicate data from a {@link Persistence data source}
- * to a {@link Persistence target}. The source and target are autowired,
- * but can also be set programmatically.
- * 
+ * Component that writes all data in the database to files, in the format
+ * that the {@link ParserFactory} finds for the configured filenames.
+ * We stream each repository through the {@link Parser} straight into its
+ * file, in one pass, so we never hold more than a few records in memory.
+ *
+ * Invoices can be split into several partitions, by ranges of invoice
+ * numbers, that are exported at the same time to separate files, named
+ * for the configured file with a partition number: invoices_1.csv,
+ * invoices_2.csv, and so on.
+ *
  * @author Will Provost
  */
  @Component
@@ -20,19 +42,106 @@ public class Export {
 
 	@Autowired
 	@Setter
-	private MongoPersistence source;
-	
+	private CustomerRepository customers;
+
 	@Autowired
 	@Setter
-	private ParserPersistence target;
-	
+	private InvoiceRepository invoices;
+
+	@Value("${ParserPersistence.customersFile}")
+	@Setter
+	private String customersFile;
+
+	@Value("${ParserPersistence.invoicesFile}")
+	@Setter
+	private String invoicesFile;
+
+	@Value("${Export.partitions:1}")
+	@Setter
+	private int partitions = 1;
+
+	private static Path prepare(String filename) throws IOException {
+		Path path = Paths.get(filename).toAbsolutePath();
+		Files.createDirectories(path.getParent());
+		return path;
+	}
+
+	/**
+	 * Derives the filename for one partition of the invoices file,
+	 * keeping the extension so that it will be parsed the same way.
+	 */
+	public static String getPartitionFilename(String filename, int partition) {
+		Path path = Paths.get(filename);
+		String name = path.getFileName().toString();
+		int dot = name.indexOf(".");
+		String partitionName = dot != -1
+				? name.substring(0, dot) + "_" + partition + name.substring(dot)
+				: name + "_" + partition;
+		return path.resolveSibling(partitionName).toString();
+	}
+
 	/**
-	 * Reload the source and the target, for a clean slate.
-	 * Save every object found in the source data set to the target. 
+	 * Writes all customers, and then all invoices, either to the one file
+	 * or to partitions.
+	 *
+	 * @throws UncheckedIOException If we can't write a file;
+	 *   any file we didn't finish is left as it was
 	 */
 	public void export() {
-		source.load();
-		source.getCustomers().values().forEach(target::saveCustomer);
-		source.getInvoices().values().forEach(target::saveInvoice);
+		Parser parser = ParserFactory.createParser(customersFile);
+		try {
+			try ( Stream<Customer> stream = customers.streamAllBy(); ) {
+				parser.writeCustomers(prepare(customersFile), stream);
+			}
+			if (partitions <= 1) {
+				try ( Stream<Invoice> stream = invoices.streamAllBy(); ) {
+					parser.writeInvoices(prepare(invoicesFile), stream);
+				}
+			} else {
+				exportPartitions(parser);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Divides the range of invoice numbers in use into equal parts,
+	 * and exports each part on its own thread.
+	 */
+	private void exportPartitions(Parser parser) throws IOException {
+		int lowest = invoices.findFirstByOrderByNumberAsc()
+				.map(Invoice::getNumber).orElse(0);
+		int highest = invoices.findFirstByOrderByNumberDesc()
+				.map(Invoice::getNumber).orElse(0);
+		int span = (highest - lowest) / partitions + 1;
+
+		ExecutorService executor = Executors.newFixedThreadPool(partitions);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int partition = 0; partition < partitions; ++partition) {
+				int from = lowest + partition * span;
+				Path path = prepare(getPartitionFilename(invoicesFile, partition + 1));
+				futures.add(executor.submit(() -> {
+					try ( Stream<Invoice> stream =
+							invoices.streamByNumberRange(from, from + span); ) {
+						parser.writeInvoices(path, stream);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			throw new IllegalStateException("Couldn't export invoices.", ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
 	}
 }
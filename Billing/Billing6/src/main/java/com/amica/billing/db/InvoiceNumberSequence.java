@@ -0,0 +1,31 @@
+package com.amica.billing.db;
+
+/**
+ * Source of new invoice numbers. Implementations are seeded once, with the
+ * highest number in the loaded data, and from then on hand out numbers
+ * without scanning existing invoices; they must be safe to call from
+ * many threads at once, so that no two callers get the same number.
+ *
+ * @author Will Provost
+ */
+public interface InvoiceNumberSequence {
+
+	/**
+	 * Returns the next unused invoice number.
+	 */
+	public default int next() {
+		return allocateBlock(1);
+	}
+	
+	/**
+	 * Reserves a run of consecutive invoice numbers, as for a bulk import,
+	 * and returns the first of them.
+	 */
+	public int allocateBlock(int count);
+	
+	/**
+	 * Notes an invoice number that was assigned elsewhere -- for example
+	 * one copied from another data set -- so that we never hand it out.
+	 */
+	public void observe(int number);
+}
@@ -1,7 +1,9 @@
 package com.amica.billing.db;
 
+import java.util.Optional;
 import java.util.stream.Stream;
 
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 import com.amica.billing.Invoice;
@@ -17,4 +19,15 @@ public interface InvoiceRepository extends PagingAndSortingRepository<Invoice,In
 	 * Alternative to the built-in findAll() that returns a stream.
 	 */
 	public Stream<Invoice> streamAllBy();
+	
+	/**
+	 * Returns a stream of invoices numbered from the first given number,
+	 * inclusive, up to the second, exclusive.
+	 */
+	@Query("{ '_id': { '$gte': ?0, '$lt': ?1 } }")
+	public Stream<Invoice> streamByNumberRange(int from, int to);
+	
+	public Optional<Invoice> findFirstByOrderByNumberAsc();
+	
+	public Optional<Invoice> findFirstByOrderByNumberDesc();
 }
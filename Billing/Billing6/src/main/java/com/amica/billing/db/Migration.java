@@ -44,7 +44,7 @@ public class Migration {
 		source.load();
 		target.load();
 		
-		source.getCustomers().values().forEach(target::saveCustomer);
-		source.getInvoices().values().forEach(target::saveInvoice);
+		target.saveAllCustomers(source.getCustomers().values());
+		target.saveAllInvoices(source.getInvoices().values());
 	}
 }
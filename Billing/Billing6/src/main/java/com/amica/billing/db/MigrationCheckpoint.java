@@ -0,0 +1,29 @@
+package com.amica.billing.db;
+
+import java.util.OptionalInt;
+
+/**
+ * Durable record of how far a {@link StreamingMigration} has got:
+ * the number of the last invoice in the last batch it committed.
+ * 
+ * @author Will Provost
+ */
+public interface MigrationCheckpoint {
+
+	/**
+	 * Returns the last invoice number committed, or nothing if
+	 * there's no migration under way.
+	 */
+	public OptionalInt getLastInvoiceNumber();
+	
+	/**
+	 * Records that everything up to and including the given invoice
+	 * has been written. 
+	 */
+	public void commit(int lastInvoiceNumber);
+	
+	/**
+	 * Forgets the checkpoint, once a migration is complete.
+	 */
+	public void clear();
+}
@@ -1,6 +1,8 @@
 package com.amica.billing.db;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import com.amica.billing.Customer;
 import com.amica.billing.Invoice;
@@ -22,6 +24,17 @@ public interface Persistence {
 	 */
 	public Map<Integer,Invoice> getInvoices();
 	
+	/**
+	 * Returns the invoices for the named customer, sorted by number.
+	 */
+	public Stream<Invoice> getInvoicesForCustomer(String customerName);
+	
+	/**
+	 * Returns the volume of business (sum of all invoices) 
+	 * for the named customer.
+	 */
+	public double getVolumeForCustomer(String customerName);
+	
 	/**
 	 * Updates a customer with the same name, or inserts a new customer.
 	 */
@@ -31,4 +44,28 @@ public interface Persistence {
 	 * Updates an invoice with the same number, or inserts a new invoice.
 	 */
 	public void saveInvoice(Invoice invoice);
+	
+	/**
+	 * Updates or inserts each of the given customers, writing them
+	 * in batches rather than one at a time.
+	 */
+	public void saveAllCustomers(Collection<Customer> customers);
+	
+	/**
+	 * Updates or inserts each of the given invoices, writing them
+	 * in batches rather than one at a time.
+	 */
+	public void saveAllInvoices(Collection<Invoice> invoices);
+	
+	/**
+	 * Returns a new, unused invoice number. Concurrent callers always
+	 * get distinct numbers.
+	 */
+	public int nextInvoiceNumber();
+	
+	/**
+	 * Reserves a run of consecutive, unused invoice numbers, 
+	 * as for a bulk import, and returns the first of them.
+	 */
+	public int allocateInvoiceNumbers(int count);
 }
@@ -0,0 +1,254 @@
+package com.amica.billing.db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.ParserFactory;
+import com.amica.billing.parse.Parser;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+/**
+ * Component that replicates data from files to a {@link BatchWriter}
+ * without loading either side into a cache. Unlike the {@link Migration},
+ * it doesn't clear the target first, and can pick up where it left off.
+ *
+ * We read the customers into a map, since we need them to parse invoices;
+ * but invoices are streamed straight from the {@link Parser}. A reader
+ * thread gathers them into batches and hands them to the caller's thread,
+ * which writes them, through a queue of a few batches; if the target
+ * falls behind, the reader waits, so no more than that many batches are
+ * ever in memory. After each batch is written we commit a
+ * {@link MigrationCheckpoint}, and a rerun after a failure skips the source
+ * file up to and including the checkpointed invoice. Progress and
+ * throughput are logged as we go.
+ *
+ * @author Will Provost
+ */
+@Component
+@Log
+public class StreamingMigration {
+
+	public static final int DEFAULT_QUEUED_BATCHES = 4;
+	public static final long DEFAULT_REPORT_MILLIS = 5000;
+
+	/**
+	 * Counts of what we've migrated, and how long it took.
+	 */
+	@Getter
+	public static class Progress {
+		private long customers;
+		private long invoices;
+		private long skipped;
+		private Duration elapsed = Duration.ZERO;
+
+		/**
+		 * Returns invoices written per second.
+		 */
+		public double getThroughput() {
+			return elapsed.isZero() ? 0 : invoices * 1000.0 / elapsed.toMillis();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Migrated %,d customers and %,d invoices, "
+					+ "skipping %,d already migrated, in %.1f seconds "
+					+ "(%,.0f invoices per second).", customers, invoices,
+					skipped, elapsed.toMillis() / 1000.0, getThroughput());
+		}
+	}
+
+	@Value("${ParserPersistence.customersFile}")
+	@Setter
+	private String customersFile;
+
+	@Value("${ParserPersistence.invoicesFile}")
+	@Setter
+	private String invoicesFile;
+
+	@Value("${Persistence.batchSize:" + CachingPersistence.DEFAULT_BATCH_SIZE + "}")
+	@Setter
+	private int batchSize = CachingPersistence.DEFAULT_BATCH_SIZE;
+
+	@Value("${StreamingMigration.queuedBatches:" + DEFAULT_QUEUED_BATCHES + "}")
+	@Setter
+	private int queuedBatches = DEFAULT_QUEUED_BATCHES;
+
+	@Value("${StreamingMigration.reportMillis:" + DEFAULT_REPORT_MILLIS + "}")
+	@Setter
+	private long reportMillis = DEFAULT_REPORT_MILLIS;
+
+	@Autowired
+	@Setter
+	private BatchWriter target;
+
+	@Autowired
+	@Setter
+	private MigrationCheckpoint checkpoint;
+
+	/**
+	 * Splits the stream into lists of at most the batch size.
+	 */
+	private <T> Iterator<List<T>> batches(Iterator<T> records) {
+		return new Iterator<>() {
+			public boolean hasNext() {
+				return records.hasNext();
+			}
+
+			public List<T> next() {
+				List<T> batch = new ArrayList<>(batchSize);
+				while (batch.size() < batchSize && records.hasNext()) {
+					batch.add(records.next());
+				}
+				return batch;
+			}
+		};
+	}
+
+	/**
+	 * Writes all customers, which is harmless if they were written before,
+	 * and returns them by name.
+	 */
+	private Map<String,Customer> migrateCustomers(Parser parser, Progress progress)
+			throws IOException {
+		Map<String,Customer> customers;
+		try ( Stream<Customer> stream =
+				parser.parseCustomers(Paths.get(customersFile)); ) {
+			customers = stream.collect(Collectors.toMap
+					(Customer::getName, Function.identity()));
+		}
+		for (Iterator<List<Customer>> batches =
+				batches(customers.values().iterator()); batches.hasNext(); ) {
+			List<Customer> batch = batches.next();
+			target.writeCustomers(batch);
+			progress.customers += batch.size();
+		}
+		return customers;
+	}
+
+	/**
+	 * Reads invoices into batches and queues them for the writer,
+	 * skipping through the checkpointed invoice, if any. An empty batch
+	 * marks the end of the stream, and is queued even if we fail --
+	 * unless we're interrupted, which means the writer has given up.
+	 */
+	private Void readInvoices(Parser parser, Map<String,Customer> customers,
+			OptionalInt resumeAfter, BlockingQueue<List<Invoice>> queue,
+			Progress progress) throws IOException, InterruptedException {
+		Path path = Paths.get(invoicesFile);
+		boolean interrupted = false;
+		try ( Stream<Invoice> stream = parser.parseInvoices(path, customers); ) {
+			Iterator<Invoice> invoices = stream.iterator();
+			if (resumeAfter.isPresent()) {
+				boolean found = false;
+				while (!found && invoices.hasNext()) {
+					found = invoices.next().getNumber() == resumeAfter.getAsInt();
+					++progress.skipped;
+				}
+				if (!found) {
+					log.warning(() -> "Checkpointed invoice " +
+						resumeAfter.getAsInt() + " isn't in " + invoicesFile +
+						"; nothing left to migrate.");
+				}
+			}
+			for (Iterator<List<Invoice>> batches = batches(invoices);
+					batches.hasNext(); ) {
+				queue.put(batches.next());
+			}
+		} catch (InterruptedException ex) {
+			interrupted = true;
+		} finally {
+			if (!interrupted) {
+				queue.put(List.of());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Migrates customers, and then any invoices not already migrated,
+	 * committing a checkpoint after each batch. Once every invoice is
+	 * written, we clear the checkpoint, so the next run starts over.
+	 *
+	 * @throws UncheckedIOException If we can't read the source files;
+	 *   the checkpoint will reflect any batches already written
+	 */
+	public Progress migrate() {
+		Parser parser = ParserFactory.createParser(customersFile);
+		Progress progress = new Progress();
+		long started = System.nanoTime();
+		ExecutorService reader = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "StreamingMigration reader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			Map<String,Customer> customers = migrateCustomers(parser, progress);
+
+			OptionalInt resumeAfter = checkpoint.getLastInvoiceNumber();
+			resumeAfter.ifPresent(number -> log.info(() ->
+					"Resuming migration after invoice " + number));
+			BlockingQueue<List<Invoice>> queue =
+					new ArrayBlockingQueue<>(queuedBatches);
+			Future<Void> reading = reader.submit(() -> readInvoices
+					(parser, customers, resumeAfter, queue, progress));
+
+			long nextReport = started + reportMillis * 1000000;
+			for (List<Invoice> batch = queue.take(); !batch.isEmpty();
+					batch = queue.take()) {
+				target.writeInvoices(batch);
+				checkpoint.commit(batch.get(batch.size() - 1).getNumber());
+				progress.invoices += batch.size();
+
+				long now = System.nanoTime();
+				if (now >= nextReport) {
+					progress.elapsed = Duration.ofNanos(now - started);
+					log.info(progress::toString);
+					nextReport = now + reportMillis * 1000000;
+				}
+			}
+			reading.get();
+			checkpoint.clear();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw new UncheckedIOException((IOException) ex.getCause());
+			}
+			throw new IllegalStateException("Couldn't read invoices.", ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			reader.shutdownNow();
+		}
+
+		progress.elapsed = Duration.ofNanos(System.nanoTime() - started);
+		log.info(progress::toString);
+		return progress;
+	}
+}
@@ -10,6 +10,7 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
 import com.amica.billing.db.CustomerRepository;
 import com.amica.billing.db.InvoiceRepository;
 import com.amica.billing.db.Migration;
+import com.amica.billing.db.StreamingMigration;
 
 /**
  * Utility application that replicates all data from the prepared
@@ -31,12 +32,18 @@ public class MigrateCSVToMongo {
 	 * call its {@link Migration#migrate migrate method},
 	 * and then use the repository beans to report the counts of
 	 * customers and invoices in the replicated database.
+	 * Pass <code>--streaming</code> to use the {@link StreamingMigration}
+	 * instead, which resumes an interrupted migration.
 	 */
 	public static void main(String[] args) {
 		try ( ConfigurableApplicationContext context =
 				SpringApplication.run(MigrateCSVToMongo.class); ) {
 			
-			context.getBean(Migration.class).migrate();
+			if (args.length != 0 && args[0].equals("--streaming")) {
+				context.getBean(StreamingMigration.class).migrate();
+			} else {
+				context.getBean(Migration.class).migrate();
+			}
 			
 			CustomerRepository customers = context.getBean(CustomerRepository.class);
 			InvoiceRepository invoices = context.getBean(InvoiceRepository.class);
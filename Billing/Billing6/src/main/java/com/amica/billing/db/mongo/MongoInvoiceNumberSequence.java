@@ -0,0 +1,79 @@
+package com.amica.billing.db.mongo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.amica.billing.db.InvoiceNumberSequence;
+
+import lombok.Data;
+
+/**
+ * {@link InvoiceNumberSequence} backed by a counter document in MongoDB,
+ * so that several processes sharing a database never issue the same
+ * number. Each allocation is a single atomic $inc on the counter.
+ *
+ * @author Will Provost
+ */
+public class MongoInvoiceNumberSequence implements InvoiceNumberSequence {
+
+	public static final String COLLECTION = "counters";
+	public static final String COUNTER_ID = "invoiceNumber";
+	
+	/**
+	 * The counter document.
+	 */
+	@Data
+	public static class Counter {
+		@Id
+		private String id;
+		private int value;
+	}
+	
+	private MongoOperations mongo;
+	private AtomicInteger highestObserved = new AtomicInteger();
+	
+	/**
+	 * Provide the highest invoice number already in use, and we assure
+	 * that the counter is at least that high -- leaving it alone if it
+	 * is already higher, as when another process has allocated numbers.
+	 */
+	public MongoInvoiceNumberSequence(MongoOperations mongo, int highest) {
+		this.mongo = mongo;
+		observe(highest);
+	}
+	
+	private static Query counterQuery() {
+		return Query.query(where("_id").is(COUNTER_ID));
+	}
+	
+	public int allocateBlock(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException
+				("Can't allocate a block of " + count + " invoice numbers.");
+		}
+		Counter counter = mongo.findAndModify(counterQuery(), 
+				new Update().inc("value", count), 
+				FindAndModifyOptions.options().returnNew(true).upsert(true), 
+				Counter.class, COLLECTION);
+		return counter.getValue() - count + 1;
+	}
+	
+	/**
+	 * Raises the counter, if need be, with $max. We remember the highest 
+	 * number observed so far, so that a run of saves of existing invoices
+	 * doesn't cost a round trip each.
+	 */
+	public void observe(int number) {
+		if (highestObserved.getAndAccumulate(number, Math::max) < number) {
+			mongo.upsert(counterQuery(), 
+					new Update().max("value", number), COLLECTION);
+		}
+	}
+}
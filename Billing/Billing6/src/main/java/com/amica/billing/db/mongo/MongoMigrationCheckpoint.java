@@ -0,0 +1,52 @@
+package com.amica.billing.db.mongo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.OptionalInt;
+
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.amica.billing.db.MigrationCheckpoint;
+import com.amica.billing.db.mongo.MongoInvoiceNumberSequence.Counter;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * {@link MigrationCheckpoint} kept in the database being migrated to,
+ * as a document alongside the invoice-number counter, so that it's 
+ * committed in the same place as the batches it describes.
+ * 
+ * @author Will Provost
+ */
+@Component
+@AllArgsConstructor
+public class MongoMigrationCheckpoint implements MigrationCheckpoint {
+
+	public static final String CHECKPOINT_ID = "migratedInvoiceNumber";
+	
+	private MongoOperations mongo;
+	
+	private static Query checkpointQuery() {
+		return Query.query(where("_id").is(CHECKPOINT_ID));
+	}
+	
+	public OptionalInt getLastInvoiceNumber() {
+		Counter checkpoint = mongo.findOne(checkpointQuery(), 
+				Counter.class, MongoInvoiceNumberSequence.COLLECTION);
+		return checkpoint != null 
+				? OptionalInt.of(checkpoint.getValue()) 
+				: OptionalInt.empty();
+	}
+	
+	public void commit(int lastInvoiceNumber) {
+		mongo.upsert(checkpointQuery(), new Update().set("value", lastInvoiceNumber),
+				MongoInvoiceNumberSequence.COLLECTION);
+	}
+	
+	public void clear() {
+		mongo.remove(checkpointQuery(), MongoInvoiceNumberSequence.COLLECTION);
+	}
+}
@@ -1,16 +1,26 @@
 package com.amica.billing.db.mongo;
 
+import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
 
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
 
 import com.amica.billing.Customer;
 import com.amica.billing.Invoice;
+import com.amica.billing.db.BatchWriter;
 import com.amica.billing.db.CachingPersistence;
 import com.amica.billing.db.CustomerRepository;
+import com.amica.billing.db.InvoiceNumberSequence;
 import com.amica.billing.db.InvoiceRepository;
 
 import lombok.AllArgsConstructor;
@@ -19,16 +29,22 @@ import lombok.AllArgsConstructor;
  * Persistence implementation using MongoDB.
  * We trigger an initial load when configured as a Spring bean,
  * and support re-loading programmatically after that.
+ * Invoice numbers are allocated from a counter document in the database.
+ * Each batch of a bulk save is sent as one unordered bulk write, 
+ * replacing or inserting each document by its ID. These writes are
+ * also open to a {@link com.amica.billing.db.StreamingMigration}, 
+ * which bypasses the cache.
  * 
  * @author Will Provost
  */
 @Component
 @Primary
 @AllArgsConstructor
-public class MongoPersistence extends CachingPersistence {
+public class MongoPersistence extends CachingPersistence implements BatchWriter {
 
 	private CustomerRepository customers;
 	private InvoiceRepository invoices;
+	private MongoOperations mongo;
 
 	@Override
 	@PostConstruct
@@ -36,6 +52,11 @@ public class MongoPersistence extends CachingPersistence {
 		super.load();
 	}
 	
+	@Override
+	protected InvoiceNumberSequence createInvoiceNumberSequence(int highest) {
+		return new MongoInvoiceNumberSequence(mongo, highest);
+	}
+	
 	protected Stream<Customer> readCustomers() {
 		return customers.streamAllBy();
 	}
@@ -51,4 +72,28 @@ public class MongoPersistence extends CachingPersistence {
 	protected void writeInvoice(Invoice invoice) {
 		invoices.save(invoice);
 	}
+	
+	/**
+	 * Helper to add a replace-or-insert for each entity to an unordered 
+	 * bulk write, and to execute it.
+	 */
+	private <T> void upsertAll(Class<T> type, List<T> batch, 
+			Function<T,Object> id) {
+		BulkOperations bulk = mongo.bulkOps(BulkMode.UNORDERED, type);
+		for (T entity : batch) {
+			bulk.replaceOne(Query.query(Criteria.where("_id").is(id.apply(entity))), 
+					entity, FindAndReplaceOptions.options().upsert());
+		}
+		bulk.execute();
+	}
+	
+	@Override
+	public void writeCustomers(List<Customer> batch) {
+		upsertAll(Customer.class, batch, Customer::getName);
+	}
+	
+	@Override
+	public void writeInvoices(List<Invoice> batch) {
+		upsertAll(Invoice.class, batch, Invoice::getNumber);
+	}
 }
@@ -0,0 +1,188 @@
+package com.amica.billing.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Helpers that decode field values straight from bytes in a buffer,
+ * given absolute start and end positions. Each one handles the common,
+ * plain form of its value without allocating; anything else is turned
+ * into a string and handed to the same JDK method that the text-based
+ * parsers use, so that the results -- and the failures -- are the same.
+ * 
+ * @author Will Provost
+ */
+public class ByteFields {
+
+	public static final DateTimeFormatter ISO_DATE = 
+			DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	public static final DateTimeFormatter SHORT_DATE = 
+			DateTimeFormatter.ofPattern("MMddyy");
+	
+	private static final int SHORT_DATE_BASE_YEAR = 2000;
+	
+	private static final int MAX_INT_DIGITS = 9;
+	private static final int MAX_EXACT_DIGITS = 15;
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+	
+	/**
+	 * Returns the text between the given positions.
+	 */
+	public static String string(ByteBuffer buffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Returns the first position in the range that doesn't hold a space
+	 * or control character, as would {@link String#trim}.
+	 */
+	public static int trimStart(ByteBuffer buffer, int start, int end) {
+		while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+			++start;
+		}
+		return start;
+	}
+	
+	/**
+	 * Returns the position after the last byte in the range that isn't
+	 * a space or control character, as would {@link String#trim}.
+	 */
+	public static int trimEnd(ByteBuffer buffer, int start, int end) {
+		while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+			--end;
+		}
+		return end;
+	}
+	
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+	
+	/**
+	 * Parses an integer, as would {@link Integer#parseInt}.
+	 */
+	public static int parseInt(ByteBuffer buffer, int start, int end) {
+		int position = start;
+		boolean negative = false;
+		if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+			negative = buffer.get(position++) == '-';
+		}
+		
+		if (position < end && end - position <= MAX_INT_DIGITS) {
+			int value = 0;
+			for ( ; position < end && isDigit(buffer.get(position)); ++position) {
+				value = value * 10 + buffer.get(position) - '0';
+			}
+			if (position == end) {
+				return negative ? -value : value;
+			}
+		}
+		return Integer.parseInt(string(buffer, start, end));
+	}
+	
+	/**
+	 * Parses a decimal amount, as would {@link Double#parseDouble}.
+	 * For up to 15 significant digits, dividing the exact digits by an
+	 * exact power of ten gives the same, correctly-rounded result.
+	 */
+	public static double parseAmount(ByteBuffer buffer, int start, int end) {
+		int position = start;
+		boolean negative = false;
+		if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+			negative = buffer.get(position++) == '-';
+		}
+		
+		long digits = 0;
+		int count = 0;
+		int scale = -1;
+		for ( ; position < end; ++position) {
+			byte b = buffer.get(position);
+			if (isDigit(b)) {
+				digits = digits * 10 + b - '0';
+				++count;
+				if (scale >= 0) {
+					++scale;
+				}
+			} else if (b == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				break;
+			}
+		}
+		
+		if (position == end && count != 0 && count <= MAX_EXACT_DIGITS) {
+			double value = digits / POWERS_OF_TEN[Math.max(scale, 0)];
+			return negative ? -value : value;
+		}
+		return Double.parseDouble(string(buffer, start, end));
+	}
+	
+	private static int digits(ByteBuffer buffer, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; ++i) {
+			value = value * 10 + buffer.get(i) - '0';
+		}
+		return value;
+	}
+	
+	private static boolean allDigits(ByteBuffer buffer, int start, int count) {
+		for (int i = start; i < start + count; ++i) {
+			if (!isDigit(buffer.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Parses a date in yyyy-MM-dd form, as would {@link LocalDate#parse}
+	 * with the {@link #ISO_DATE} formatter. As with that formatter's
+	 * smart resolution, a day of the month past the end of the month, 
+	 * but not past 31, is taken as the last day of the month.
+	 */
+	public static LocalDate parseISODate(ByteBuffer buffer, int start, int end) {
+		if (end - start == 10 && allDigits(buffer, start, 4) && 
+				buffer.get(start + 4) == '-' && allDigits(buffer, start + 5, 2) &&
+				buffer.get(start + 7) == '-' && allDigits(buffer, start + 8, 2)) {
+			int year = digits(buffer, start, 4);
+			int month = digits(buffer, start + 5, 2);
+			int day = digits(buffer, start + 8, 2);
+			if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+				return LocalDate.of(year, month, 
+						Math.min(day, Month.of(month).length(Year.isLeap(year))));
+			}
+		}
+		return LocalDate.parse(string(buffer, start, end), ISO_DATE);
+	}
+	
+	/**
+	 * Parses a date in MMddyy form, as would {@link LocalDate#parse}
+	 * with the {@link #SHORT_DATE} formatter: the year is taken to be
+	 * in this century, and a day past the end of the month is resolved 
+	 * as for {@link #parseISODate}.
+	 */
+	public static LocalDate parseShortDate(ByteBuffer buffer, int start, int end) {
+		if (end - start == 6 && allDigits(buffer, start, 6)) {
+			int month = digits(buffer, start, 2);
+			int day = digits(buffer, start + 2, 2);
+			int year = SHORT_DATE_BASE_YEAR + digits(buffer, start + 4, 2);
+			if (month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+				return LocalDate.of(year, month, 
+						Math.min(day, Month.of(month).length(Year.isLeap(year))));
+			}
+		}
+		return LocalDate.parse(string(buffer, start, end), SHORT_DATE);
+	}
+}
@@ -14,6 +14,8 @@ import lombok.extern.java.Log;
 
 /**
  * A parser that can read a CSV format with certain expected columns.
+ * Lines are split and built by the {@link CSVTokenizer}, so any field
+ * may be quoted; we quote names when writing only if they need it.
  * 
  * @author Will Provost
  */
@@ -33,12 +35,26 @@ public class CSVParser implements Parser {
 	public static final int INVOICE_DATE_COLUMN = 4;
 	public static final int INVOICE_PAID_DATE_COLUMN = 5;
 
+	private boolean quotingNames;
+	
+	public CSVParser() {
+		this(false);
+	}
+	
+	/**
+	 * @param quotingNames If true, we always quote first and last names
+	 *   when writing customers and invoices.
+	 */
+	protected CSVParser(boolean quotingNames) {
+		this.quotingNames = quotingNames;
+	}
+
 	/**
 	 * Helper that can parse one line of comma-separated text in order to
 	 * produce a {@link Customer} object.
 	 */
 	private Customer parseCustomer(String line) {
-		String[] fields = line.split(",");
+		String[] fields = CSVTokenizer.split(line);
 		if (fields.length == CUSTOMER_COLUMNS) {
 			try {
 				String firstName = fields[CUSTOMER_FIRST_NAME_COLUMN];
@@ -65,9 +81,9 @@ public class CSVParser implements Parser {
 	 * Helper that can parse one line of comma-separated text in order to
 	 * produce an {@link Invoice} object.
 	 */
-	private Invoice parseInvoice(String line, Map<String, Customer> customers) {
+	Invoice parseInvoice(String line, Map<String, Customer> customers) {
 		DateTimeFormatter parser = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-		String[] fields = line.split(",");
+		String[] fields = CSVTokenizer.split(line);
 		if (fields.length >= INVOICE_MIN_COLUMNS) {
 			try {
 				int number = Integer.parseInt(fields[INVOICE_NUMBER_COLUMN]);
@@ -104,22 +120,25 @@ public class CSVParser implements Parser {
 	 * Helper to write a CSV representation of one customer.
 	 */
 	public String formatCustomer(Customer customer) {
-		return String.format("%s,%s,%s", 
-				customer.getFirstName(), customer.getLastName(), 
-				customer.getTerms().toString().replace("CREDIT_", ""));
+		return new CSVTokenizer.Line()
+				.field(customer.getFirstName(), quotingNames)
+				.field(customer.getLastName(), quotingNames)
+				.field(customer.getTerms().toString().replace("CREDIT_", ""))
+				.toString();
 	}
 	
 	/**
 	 * Helper to write a CSV representation of one invoice.
 	 */
 	public String formatInvoice(Invoice invoice) {
-		return String.format("%d,%s,%s,%.2f,%s%s", 
-				invoice.getNumber(),
-				invoice.getCustomer().getFirstName(), 
-				invoice.getCustomer().getLastName(),
-				invoice.getAmount(), 
-				invoice.getIssueDate().toString(),
-				invoice.getPaidDate().map(pd -> "," + pd.toString()).orElse(""));
+		CSVTokenizer.Line line = new CSVTokenizer.Line()
+				.field(invoice.getNumber())
+				.field(invoice.getCustomer().getFirstName(), quotingNames)
+				.field(invoice.getCustomer().getLastName(), quotingNames)
+				.field(String.format("%.2f", invoice.getAmount()))
+				.field(invoice.getIssueDate());
+		invoice.getPaidDate().ifPresent(line::field);
+		return line.toString();
 	}
 
 	/**
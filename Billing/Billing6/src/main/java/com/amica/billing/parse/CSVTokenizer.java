@@ -0,0 +1,148 @@
+package com.amica.billing.parse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the fields of one line of CSV, in the manner of 
+ * RFC 4180: a field may be enclosed in double quotation marks (&quot;),
+ * in which case it can hold commas, and a quotation mark within it is 
+ * written twice. Each line is read in a single pass, taking unquoted
+ * fields, and quoted fields without escapes, as substrings of the line.
+ * 
+ * To agree with {@link String#split}, which our parsers have always used,
+ * trailing empty fields are dropped, unless they're quoted.
+ * We read one line at a time, so quoted fields can't hold line breaks.
+ * 
+ * @author Will Provost
+ */
+public class CSVTokenizer {
+
+	public static final char SEPARATOR = ',';
+	public static final char QUOTE = '"';
+	
+	/**
+	 * Splits the line into fields, removing enclosing quotation marks
+	 * and un-escaping any within quoted fields. An unterminated quoted
+	 * field runs to the end of the line.
+	 */
+	public static String[] split(String line) {
+		List<String> fields = new ArrayList<>();
+		int kept = 0;
+		int length = line.length();
+		int start = 0;
+		do {
+			String field;
+			int end;
+			if (start < length && line.charAt(start) == QUOTE) {
+				StringBuilder escaped = null;
+				int from = start + 1;
+				end = from;
+				while (true) {
+					int quote = line.indexOf(QUOTE, end);
+					if (quote == -1) {
+						end = length;
+						break;
+					} else if (quote + 1 < length && line.charAt(quote + 1) == QUOTE) {
+						if (escaped == null) {
+							escaped = new StringBuilder();
+						}
+						escaped.append(line, from, quote + 1);
+						from = end = quote + 2;
+					} else {
+						end = quote;
+						break;
+					}
+				}
+				
+				field = escaped == null 
+						? line.substring(from, end)
+						: escaped.append(line, from, end).toString();
+				
+				int separator = line.indexOf(SEPARATOR, Math.min(end + 1, length));
+				int next = separator == -1 ? length : separator;
+				if (next > end + 1) {
+					field += line.substring(end + 1, next);
+				}
+				end = next;
+				fields.add(field);
+				kept = fields.size();
+			} else {
+				end = line.indexOf(SEPARATOR, start);
+				if (end == -1) {
+					end = length;
+				}
+				field = line.substring(start, end);
+				fields.add(field);
+				if (!field.isEmpty()) {
+					kept = fields.size();
+				}
+			}
+			start = end + 1;
+		} while (start <= length);
+		
+		if (kept == 0 && length == 0) {
+			kept = 1;
+		}
+		return fields.subList(0, kept).toArray(new String[kept]);
+	}
+	
+	/**
+	 * Checks whether a value must be quoted to be read back as one field.
+	 */
+	public static boolean needsQuotes(String value) {
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c == SEPARATOR || c == QUOTE || c == '\r' || c == '\n') {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Builds one line of CSV, a field at a time. 
+	 */
+	public static class Line {
+		
+		private StringBuilder builder = new StringBuilder();
+		private boolean empty = true;
+		
+		/**
+		 * Adds a field, quoting it only if necessary.
+		 */
+		public Line field(Object value) {
+			return field(value.toString(), false);
+		}
+		
+		/**
+		 * Adds a field, quoting it if requested or necessary, and 
+		 * escaping any quotation marks within it.
+		 */
+		public Line field(String value, boolean quoted) {
+			if (!empty) {
+				builder.append(SEPARATOR);
+			}
+			empty = false;
+			
+			if (quoted || needsQuotes(value)) {
+				builder.append(QUOTE);
+				int from = 0;
+				for (int quote = value.indexOf(QUOTE); quote != -1; 
+						quote = value.indexOf(QUOTE, from)) {
+					builder.append(value, from, quote + 1).append(QUOTE);
+					from = quote + 1;
+				}
+				builder.append(value, from, value.length()).append(QUOTE);
+			} else {
+				builder.append(value);
+			}
+			return this;
+		}
+		
+		@Override
+		public String toString() {
+			return builder.toString();
+		}
+	}
+}
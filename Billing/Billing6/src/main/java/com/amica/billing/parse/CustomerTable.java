@@ -0,0 +1,114 @@
+package com.amica.billing.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.amica.billing.Customer;
+
+/**
+ * Read-only hash table that finds a {@link Customer} by the bytes of
+ * its name as they appear in a buffer, without building a string.
+ * In a data file, the first and last names are usually separate fields,
+ * so the caller can give the position of the one separator byte that
+ * stands in for the space in the customer's name, or give separate
+ * ranges for the first and last names.
+ * 
+ * @author Will Provost
+ */
+public class CustomerTable {
+
+	private static final byte SPACE = ' ';
+	
+	private byte[][] keys;
+	private Customer[] values;
+	private int mask;
+	
+	/**
+	 * Builds the table from a map of customers keyed by name.
+	 */
+	public CustomerTable(Map<String,Customer> customers) {
+		int capacity = Integer.highestOneBit(Math.max(customers.size(), 2) * 2) * 2;
+		keys = new byte[capacity][];
+		values = new Customer[capacity];
+		mask = capacity - 1;
+		
+		for (Map.Entry<String,Customer> entry : customers.entrySet()) {
+			byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			int slot = hash(key) & mask;
+			while (keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			values[slot] = entry.getValue();
+		}
+	}
+	
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static int hash(byte[] key) {
+		int hash = 0;
+		for (byte b : key) {
+			hash = 31 * hash + b;
+		}
+		return spread(hash);
+	}
+	
+	/**
+	 * Returns the customer whose name is found in the buffer between the
+	 * given absolute positions, or null if there is none. The byte at the
+	 * separator position is matched as a space.
+	 */
+	public Customer get(ByteBuffer buffer, int start, int end, int separator) {
+		return get(buffer, start, separator, separator + 1, end);
+	}
+	
+	/**
+	 * Returns the customer whose first and last names are found in the 
+	 * buffer between the given absolute positions, or null if there is none.
+	 */
+	public Customer get(ByteBuffer buffer, int firstStart, int firstEnd,
+			int lastStart, int lastEnd) {
+		int length = firstEnd - firstStart + 1 + lastEnd - lastStart;
+		
+		int hash = 0;
+		for (int i = firstStart; i < firstEnd; ++i) {
+			hash = 31 * hash + buffer.get(i);
+		}
+		hash = 31 * hash + SPACE;
+		for (int i = lastStart; i < lastEnd; ++i) {
+			hash = 31 * hash + buffer.get(i);
+		}
+		
+		for (int slot = spread(hash) & mask; keys[slot] != null; 
+				slot = (slot + 1) & mask) {
+			byte[] key = keys[slot];
+			if (key.length == length && matches(key, buffer, 
+					firstStart, firstEnd, lastStart, lastEnd)) {
+				return values[slot];
+			}
+		}
+		return null;
+	}
+	
+	private static boolean matches(byte[] key, ByteBuffer buffer, 
+			int firstStart, int firstEnd, int lastStart, int lastEnd) {
+		int k = 0;
+		for (int i = firstStart; i < firstEnd; ++i) {
+			if (key[k++] != buffer.get(i)) {
+				return false;
+			}
+		}
+		if (key[k++] != SPACE) {
+			return false;
+		}
+		for (int i = lastStart; i < lastEnd; ++i) {
+			if (key[k++] != buffer.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,126 @@
+package com.amica.billing.parse;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+
+/**
+ * A file that we replace as a whole, without ever leaving it
+ * half-written. We write the new content to a temporary file in the same
+ * directory, force it to disk, rename it over the original in one atomic
+ * step, and then force the directory, so that the rename itself survives
+ * a crash. If anything fails along the way, the original file is intact.
+ * The temporary file takes the original's permissions before the rename,
+ * so replacing a file doesn't narrow who can read it.
+ * Content is usually text lines, but can be any bytes.
+ * 
+ * @author Will Provost
+ */
+public class DurableFile {
+
+	public static final String TEMP_SUFFIX = ".tmp";
+	
+	/**
+	 * Writes the file's new content to the given stream.
+	 */
+	@FunctionalInterface
+	public interface Content {
+		public void writeTo(OutputStream out) throws IOException;
+	}
+	
+	@Getter
+	private Path path;
+	
+	public DurableFile(Path path) {
+		this.path = path.toAbsolutePath();
+	}
+	
+	/**
+	 * Replaces the file's content with the given lines.
+	 */
+	public void replace(Stream<String> lines) throws IOException {
+		replace(stream -> {
+			Writer out = new BufferedWriter(new OutputStreamWriter
+					(stream, StandardCharsets.UTF_8.newEncoder()));
+			for (Iterator<String> each = lines.iterator(); each.hasNext(); ) {
+				out.write(each.next());
+				out.write(System.lineSeparator());
+			}
+			out.flush();
+		});
+	}
+	
+	/**
+	 * Replaces the file's content with whatever the given content writes.
+	 */
+	public void replace(Content content) throws IOException {
+		Path folder = path.getParent();
+		Path tempPath = Files.createTempFile
+				(folder, path.getFileName().toString(), TEMP_SUFFIX);
+		try {
+			copyPermissions(path, tempPath);
+			try ( FileChannel channel = FileChannel.open
+						(tempPath, StandardOpenOption.WRITE);
+					OutputStream out = new BufferedOutputStream
+						(Channels.newOutputStream(channel)); ) {
+				content.writeTo(out);
+				out.flush();
+				channel.force(true);
+			}
+			Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			forceFolder(folder);
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+	
+	/**
+	 * Gives the target the same POSIX permissions as the source. If the
+	 * source doesn't exist yet, or the file system doesn't have POSIX
+	 * permissions, the target keeps the ones it was created with.
+	 */
+	private static void copyPermissions(Path source, Path target) 
+			throws IOException {
+		PosixFileAttributeView view = 
+				Files.getFileAttributeView(source, PosixFileAttributeView.class);
+		if (view != null) {
+			try {
+				Files.setPosixFilePermissions
+					(target, view.readAttributes().permissions());
+			} catch (NoSuchFileException ex) {
+				// No original file, so no permissions to keep.
+			}
+		}
+	}
+	
+	/**
+	 * Forces a directory's entries to disk. Not every platform lets us
+	 * open a directory this way -- Windows doesn't -- and there we settle
+	 * for the rename alone.
+	 */
+	private static void forceFolder(Path folder) {
+		try ( FileChannel channel = FileChannel.open
+				(folder, StandardOpenOption.READ); ) {
+			channel.force(true);
+		} catch (IOException ex) {
+			// Not supported on this platform.
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.amica.billing.parse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Splits a text file into chunks of roughly a given size, each ending at
+ * the end of a line, so that the chunks can be parsed independently
+ * and in parallel. Line endings are as for 
+ * {@link java.io.BufferedReader#readLine}: LF, CR, or CR LF.
+ * 
+ * @author Will Provost
+ */
+public class FileChunks {
+
+	public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+	private static final int SCAN_SIZE = 8 * 1024;
+	
+	/**
+	 * A range of bytes in the file.
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public static class Chunk {
+		private final long start;
+		private final long end;
+	}
+	
+	@Getter
+	private Path path;
+	
+	public FileChunks(Path path) {
+		this.path = path;
+	}
+	
+	/**
+	 * Returns line-aligned chunks that together cover the whole file.
+	 */
+	public List<Chunk> split(int chunkSize) throws IOException {
+		List<Chunk> chunks = new ArrayList<>();
+		try ( FileChannel channel = FileChannel.open
+				(path, StandardOpenOption.READ); ) {
+			long size = channel.size();
+			long start = 0;
+			while (start < size) {
+				long end = start + chunkSize < size
+						? nextLineStart(channel, start + chunkSize, size)
+						: size;
+				chunks.add(new Chunk(start, end));
+				start = end;
+			}
+		}
+		return chunks;
+	}
+	
+	/**
+	 * Finds the start of the first line that begins at or after the 
+	 * given position, or the end of the file.
+	 */
+	private static long nextLineStart(FileChannel channel, long position, 
+			long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE + 1);
+		long scanStart = position - 1;
+		while (scanStart < size) {
+			buffer.clear();
+			channel.read(buffer, scanStart);
+			buffer.flip();
+			for (int i = 0; i < buffer.limit(); ++i) {
+				byte b = buffer.get(i);
+				if (b == '\n') {
+					return scanStart + i + 1;
+				} else if (b == '\r') {
+					if (i + 1 < buffer.limit()) {
+						return scanStart + i + 1 + (buffer.get(i + 1) == '\n' ? 1 : 0);
+					} else if (scanStart + i + 1 == size) {
+						return size;
+					}
+					break;
+				}
+			}
+			scanStart += Math.max(buffer.limit() - 1, 1);
+		}
+		return size;
+	}
+	
+	/**
+	 * Reads the lines in the given chunk.
+	 */
+	public Stream<String> lines(Chunk chunk) {
+		try ( FileChannel channel = FileChannel.open
+				(path, StandardOpenOption.READ); ) {
+			ByteBuffer buffer = ByteBuffer.allocate
+					(Math.toIntExact(chunk.getEnd() - chunk.getStart()));
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, chunk.getStart() + buffer.position()) < 0) {
+					break;
+				}
+			}
+			return new String(buffer.array(), 0, buffer.position(), 
+					StandardCharsets.UTF_8).lines();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
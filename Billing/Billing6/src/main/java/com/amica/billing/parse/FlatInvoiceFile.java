@@ -0,0 +1,242 @@
+package com.amica.billing.parse;
+
+import static com.amica.billing.parse.FlatParser.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+/**
+ * Reads invoices from a flat file as fixed-length records, using the
+ * {@link FlatParser}'s offsets and lengths as the record layout. 
+ * The file is memory-mapped, and each field is decoded straight from 
+ * its bytes with {@link ByteFields}, so we build no strings for good
+ * records; and because every record is the same length, we can find
+ * record N by arithmetic and read it without reading those before it.
+ * 
+ * This only works for files in which every line is exactly
+ * {@link FlatParser#INVOICE_LENGTH} bytes and ends the same way,
+ * as {@link FlatParser} writes them. Instances are not thread-safe.
+ * 
+ * @author Will Provost
+ */
+@Log
+public class FlatInvoiceFile implements Closeable {
+
+	public static final int REGION_SIZE = 1 << 30;
+	
+	private FileChannel channel;
+	private long size;
+	private CustomerTable customers;
+	
+	@Getter
+	private int recordLength;
+	@Getter
+	private long recordCount;
+	
+	private long recordsPerRegion;
+	private long regionIndex = -1;
+	private MappedByteBuffer region;
+	
+	/**
+	 * Opens the file and works out the record length from the line ending
+	 * of the first record.
+	 * 
+	 * @throws IllegalArgumentException If the file size doesn't fit the layout
+	 */
+	public FlatInvoiceFile(Path path, Map<String,Customer> customers) 
+			throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			size = channel.size();
+			this.customers = new CustomerTable(customers);
+			recordLength = INVOICE_LENGTH + lineEndingLength();
+			recordsPerRegion = REGION_SIZE / recordLength;
+			
+			long remainder = size % recordLength;
+			if (remainder == 0) {
+				recordCount = size / recordLength;
+			} else if (remainder == INVOICE_LENGTH) {
+				recordCount = size / recordLength + 1;
+			} else {
+				throw new IllegalArgumentException(path + 
+						" is not a file of fixed-length invoice records.");
+			}
+		} catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	private int lineEndingLength() throws IOException {
+		if (size <= INVOICE_LENGTH) {
+			return 1;
+		}
+		MappedByteBuffer ending = channel.map(FileChannel.MapMode.READ_ONLY, 
+				INVOICE_LENGTH, Math.min(2, size - INVOICE_LENGTH));
+		return ending.get(0) == '\r' && ending.limit() == 2 && ending.get(1) == '\n' 
+				? 2 : 1;
+	}
+	
+	/**
+	 * Returns the offset in the file at which the given record starts.
+	 */
+	public long offsetOf(long index) {
+		return index * recordLength;
+	}
+	
+	/**
+	 * Maps the region holding the given record, if it's not already 
+	 * mapped, and returns the record's position in the region.
+	 */
+	private int position(long index) throws IOException {
+		long neededRegion = index / recordsPerRegion;
+		if (neededRegion != regionIndex) {
+			long start = offsetOf(neededRegion * recordsPerRegion);
+			region = channel.map(FileChannel.MapMode.READ_ONLY, start, 
+					Math.min(size - start, recordsPerRegion * recordLength));
+			regionIndex = neededRegion;
+		}
+		return (int) (offsetOf(index) - offsetOf(regionIndex * recordsPerRegion));
+	}
+	
+	private boolean isLineEnding(int position) {
+		return recordLength == INVOICE_LENGTH + 2
+			? region.get(position) == '\r' && region.get(position + 1) == '\n'
+			: region.get(position) == '\n' || region.get(position) == '\r';
+	}
+	
+	/**
+	 * Checks that the given record ends where the layout says it should.
+	 */
+	private boolean hasLineEnding(long index, int position) {
+		return index == recordCount - 1 && offsetOf(index) + INVOICE_LENGTH == size
+				|| isLineEnding(position + INVOICE_LENGTH);
+	}
+	
+	/**
+	 * Checks every record for a line ending in the expected place. 
+	 * If any is missing, some line is longer or shorter than the layout,
+	 * and records can't be found by offset.
+	 */
+	public boolean isFixedLength() {
+		try {
+			for (long index = 0; index < recordCount; ++index) {
+				if (!hasLineEnding(index, position(index))) {
+					return false;
+				}
+			}
+			return true;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * Reads the invoice at the given record index. Returns null if the
+	 * record can't be parsed, logging it as would the {@link FlatParser}.
+	 * 
+	 * @throws IllegalStateException If the record isn't where the layout
+	 *   says it should be
+	 */
+	public Invoice getInvoice(long index) {
+		Objects.checkIndex(index, recordCount);
+		try {
+			int position = position(index);
+			if (!hasLineEnding(index, position)) {
+				throw new IllegalStateException("Record " + index + 
+					" isn't " + INVOICE_LENGTH + " bytes long.");
+			}
+			return parseInvoice(position);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * Returns a stream of all invoices in the file, in order,
+	 * skipping any that can't be parsed.
+	 */
+	public Stream<Invoice> stream() {
+		return LongStream.range(0, recordCount)
+				.mapToObj(this::getInvoice)
+				.filter(Objects::nonNull);
+	}
+	
+	/**
+	 * Decodes the trimmed field as {@link FlatParser} would.
+	 */
+	private int trimmedStart(int position, int offset, int length) {
+		return ByteFields.trimStart(region, 
+				position + offset, position + offset + length);
+	}
+	
+	private int trimmedEnd(int position, int offset, int length) {
+		return ByteFields.trimEnd(region, trimmedStart(position, offset, length),
+				position + offset + length);
+	}
+	
+	/**
+	 * Parses the record at the given position, with the same validation,
+	 * in the same order, as {@link FlatParser}.
+	 */
+	private Invoice parseInvoice(int position) {
+		try {
+			int number = ByteFields.parseInt(region, 
+				trimmedStart(position, INVOICE_NUMBER_OFFSET, INVOICE_NUMBER_LENGTH),
+				trimmedEnd(position, INVOICE_NUMBER_OFFSET, INVOICE_NUMBER_LENGTH));
+			double amount = ByteFields.parseAmount(region, 
+				trimmedStart(position, INVOICE_AMOUNT_OFFSET, INVOICE_AMOUNT_LENGTH),
+				trimmedEnd(position, INVOICE_AMOUNT_OFFSET, INVOICE_AMOUNT_LENGTH));
+			LocalDate date = ByteFields.parseShortDate(region, 
+				position + INVOICE_DATE_OFFSET, 
+				position + INVOICE_DATE_OFFSET + INVOICE_DATE_LENGTH);
+			
+			int paidStart = trimmedStart
+					(position, INVOICE_PAID_DATE_OFFSET, INVOICE_PAID_DATE_LENGTH);
+			int paidEnd = trimmedEnd
+					(position, INVOICE_PAID_DATE_OFFSET, INVOICE_PAID_DATE_LENGTH);
+			LocalDate paidDate = paidEnd - paidStart == INVOICE_PAID_DATE_LENGTH
+					? ByteFields.parseShortDate(region, paidStart, paidEnd)
+					: null;
+			
+			Customer customer = customers.get(region, 
+				trimmedStart(position, INVOICE_FIRST_NAME_OFFSET, INVOICE_FIRST_NAME_LENGTH),
+				trimmedEnd(position, INVOICE_FIRST_NAME_OFFSET, INVOICE_FIRST_NAME_LENGTH),
+				trimmedStart(position, INVOICE_LAST_NAME_OFFSET, INVOICE_LAST_NAME_LENGTH),
+				trimmedEnd(position, INVOICE_LAST_NAME_OFFSET, INVOICE_LAST_NAME_LENGTH));
+			if (customer != null) {
+				return new Invoice(number, customer, amount, date, paidDate);
+			} else {
+				String line = ByteFields.string(region, position, position + INVOICE_LENGTH);
+				log.warning(() -> 
+					"Unknown customer, skipping invoice: " + line);
+			}
+		} catch (Exception ex) {
+			String line = ByteFields.string(region, position, position + INVOICE_LENGTH);
+			log.warning(() -> 
+					"Couldn't parse values, skipping invoice: " + line);
+		}
+		
+		return null;
+	}
+	
+	public void close() throws IOException {
+		channel.close();
+	}
+}
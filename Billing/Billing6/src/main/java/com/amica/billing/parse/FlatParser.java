@@ -1,5 +1,8 @@
 package com.amica.billing.parse;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
@@ -185,6 +188,34 @@ public class FlatParser implements Parser {
 				.filter(invoice -> invoice != null);
 	}
 
+	/**
+	 * Reads the file as fixed-length records, through a 
+	 * {@link FlatInvoiceFile}, if every line is the full length of 
+	 * an invoice record; otherwise reads it line by line.
+	 */
+	@Override
+	public Stream<Invoice> parseInvoices(Path invoicesFile, 
+			Map<String, Customer> customers) throws IOException {
+		FlatInvoiceFile file = null;
+		try {
+			file = new FlatInvoiceFile(invoicesFile, customers);
+			if (file.isFixedLength()) {
+				FlatInvoiceFile openFile = file;
+				return file.stream().onClose(() -> {
+					try {
+						openFile.close();
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+			}
+			file.close();
+		} catch (IllegalArgumentException ex) {
+			// Not fixed-length records; fall through
+		}
+		return Parser.super.parseInvoices(invoicesFile, customers);
+	}
+
 	/**
 	 * Maps each customer to a string representation and writes it.
 	 */
@@ -0,0 +1,166 @@
+package com.amica.billing.parse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import lombok.extern.java.Log;
+
+/**
+ * Coalesces a burst of requests to write the same data into one write.
+ * The first request in a quiet period schedules a commit for the end of
+ * the window; further requests before then ride along with it. With a
+ * zero window, each request commits immediately, on the caller's thread.
+ * 
+ * The commit captures the data as it stands when it runs, so anything 
+ * changed before then is included. A failed commit -- whether it throws an
+ * {@link IOException} or a runtime exception -- is left pending, so that the
+ * next request or {@link #flush} retries it; in the background, it's logged.
+ * 
+ * Several commits can share one scheduler, in which case their background
+ * writes take turns on its thread, and closing them leaves it running.
+ * 
+ * @author Will Provost
+ */
+@Log
+public class GroupCommit implements Closeable {
+
+	/**
+	 * The write to be performed.
+	 */
+	public interface Commit {
+		public void run() throws IOException;
+	}
+	
+	private String name;
+	private Commit commit;
+	private Duration window;
+	private ScheduledExecutorService scheduler;
+	private boolean ownScheduler;
+	private ScheduledFuture<?> scheduled;
+	private boolean dirty;
+	private Object commitLock = new Object();
+	
+	/**
+	 * Creates a single-threaded, daemon scheduler for background commits.
+	 */
+	public static ScheduledExecutorService createScheduler(String name) {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "GroupCommit " + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	public GroupCommit(String name, Commit commit, Duration window) {
+		this(name, commit, window, window.isZero() ? null : createScheduler(name));
+		ownScheduler = scheduler != null;
+	}
+	
+	/**
+	 * Creates a commit that schedules its background writes on the given
+	 * scheduler, which is ignored if the window is zero.
+	 */
+	public GroupCommit(String name, Commit commit, Duration window,
+			ScheduledExecutorService scheduler) {
+		this.name = name;
+		this.commit = commit;
+		this.window = window;
+		if (!window.isZero()) {
+			this.scheduler = scheduler;
+		}
+	}
+	
+	/**
+	 * Requests a write of the current data.
+	 * 
+	 * @throws UncheckedIOException If the window is zero and the write fails
+	 */
+	public void request() {
+		if (scheduler == null) {
+			commitNow();
+		} else {
+			synchronized(this) {
+				dirty = true;
+				if (scheduled == null) {
+					scheduled = scheduler.schedule(this::commitInBackground, 
+							window.toNanos(), TimeUnit.NANOSECONDS);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes any pending changes now, on the caller's thread. If a background
+	 * write is already under way, we wait for it to finish.
+	 * 
+	 * @throws UncheckedIOException If the write fails
+	 */
+	public void flush() {
+		synchronized(this) {
+			if (scheduled != null) {
+				scheduled.cancel(false);
+				scheduled = null;
+			}
+		}
+		synchronized(commitLock) {
+			boolean pending;
+			synchronized(this) {
+				pending = dirty;
+			}
+			if (pending) {
+				commitNow();
+			}
+		}
+	}
+	
+	private void commitInBackground() {
+		synchronized(this) {
+			scheduled = null;
+		}
+		try {
+			commitNow();
+		} catch (RuntimeException ex) {
+			log.log(Level.SEVERE, ex, () -> "Couldn't write " + name + 
+					"; will retry on the next change or flush.");
+		}
+	}
+	
+	private void commitNow() {
+		synchronized(commitLock) {
+			synchronized(this) {
+				dirty = false;
+			}
+			try {
+				commit.run();
+			} catch (IOException ex) {
+				synchronized(this) {
+					dirty = true;
+				}
+				throw new UncheckedIOException("Couldn't write " + name, ex);
+			} catch (RuntimeException ex) {
+				synchronized(this) {
+					dirty = true;
+				}
+				throw ex;
+			}
+		}
+	}
+	
+	/**
+	 * Writes any pending changes, and stops the background thread,
+	 * unless the scheduler was given to us.
+	 */
+	public void close() {
+		flush();
+		if (ownScheduler) {
+			scheduler.shutdown();
+		}
+	}
+}
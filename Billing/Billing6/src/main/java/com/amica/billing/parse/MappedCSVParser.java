@@ -0,0 +1,264 @@
+package com.amica.billing.parse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+
+import lombok.extern.java.Log;
+
+/**
+ * A {@link CSVParser} that reads an invoice file through a memory-mapped
+ * channel. We find fields by byte offset, decode numbers and dates
+ * straight from the bytes with {@link ByteFields}, and look customers up
+ * in a {@link CustomerTable}, so a good line costs little more than its
+ * {@link Invoice}. Bad lines are skipped and logged just as by the
+ * base class, which still handles customers and invoices given as lines,
+ * and also any line in the file that holds a quoted field.
+ * 
+ * Large files are mapped a region at a time.
+ * 
+ * @author Will Provost
+ */
+@Log
+public class MappedCSVParser extends CSVParser {
+
+	public static final int REGION_SIZE = 1 << 30;
+	
+	private int regionSize;
+	
+	public MappedCSVParser() {
+		this(REGION_SIZE);
+	}
+	
+	/**
+	 * Sets a smaller region size, so tests can cross region boundaries.
+	 */
+	MappedCSVParser(int regionSize) {
+		this.regionSize = regionSize;
+	}
+	
+	/**
+	 * Maps the file and returns a stream of the invoices in it.
+	 * Close the stream to release the file.
+	 */
+	@Override
+	public Stream<Invoice> parseInvoices(Path invoicesFile, 
+			Map<String,Customer> customers) throws IOException {
+		InvoiceReader reader = new InvoiceReader
+				(FileChannel.open(invoicesFile, StandardOpenOption.READ), 
+					new CustomerTable(customers), regionSize,
+					line -> parseInvoice(line, customers));
+		return StreamSupport.stream(reader, false).onClose(reader::close);
+	}
+	
+	/**
+	 * Walks the mapped file line by line, producing invoices. 
+	 */
+	private static class InvoiceReader 
+			extends Spliterators.AbstractSpliterator<Invoice> {
+		
+		private FileChannel channel;
+		private long size;
+		private CustomerTable customers;
+		private int regionSize;
+		private Function<String,Invoice> quotedLineParser;
+		
+		private MappedByteBuffer buffer;
+		private long regionStart;
+		private int position;
+		private int lineStart;
+		private int lineEnd;
+		private int[] fieldEnds = new int[8];
+		
+		public InvoiceReader(FileChannel channel, CustomerTable customers,
+				int regionSize, Function<String,Invoice> quotedLineParser) 
+					throws IOException {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.channel = channel;
+			this.size = channel.size();
+			this.customers = customers;
+			this.regionSize = regionSize;
+			this.quotedLineParser = quotedLineParser;
+		}
+		
+		private void map(long start) throws IOException {
+			regionStart = start;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 
+					start, Math.min(size - start, regionSize));
+			position = 0;
+		}
+		
+		private boolean atEndOfFile() {
+			return regionStart + buffer.limit() == size;
+		}
+		
+		/**
+		 * Finds the next line, as would {@link java.io.BufferedReader#readLine},
+		 * and sets its start and end positions in the buffer.
+		 */
+		private boolean nextLine() throws IOException {
+			if (buffer == null) {
+				if (size == 0) {
+					return false;
+				}
+				map(0);
+			}
+			
+			while (true) {
+				int limit = buffer.limit();
+				for (int i = position; i < limit; ++i) {
+					byte b = buffer.get(i);
+					if (b == '\n' || b == '\r') {
+						if (b == '\r' && i + 1 == limit && !atEndOfFile()) {
+							break;
+						}
+						lineStart = position;
+						lineEnd = i;
+						position = i + 1;
+						if (b == '\r' && position < limit && buffer.get(position) == '\n') {
+							++position;
+						}
+						return true;
+					}
+				}
+				
+				if (atEndOfFile()) {
+					if (position < limit) {
+						lineStart = position;
+						lineEnd = limit;
+						position = limit;
+						return true;
+					}
+					return false;
+				} else if (position == 0) {
+					throw new IOException("Line too long at offset " + regionStart);
+				}
+				map(regionStart + position);
+			}
+		}
+		
+		private String line() {
+			return ByteFields.string(buffer, lineStart, lineEnd);
+		}
+		
+		/**
+		 * Finds the end of each field in the current line, and returns
+		 * the number of fields as would {@link String#split}, which drops
+		 * trailing empty fields. Returns -1 if the line holds a quotation
+		 * mark, as we leave quoted fields to the {@link CSVTokenizer}.
+		 */
+		private int findFields() {
+			int count = 0;
+			for (int i = lineStart; i <= lineEnd; ++i) {
+				if (i < lineEnd && buffer.get(i) == CSVTokenizer.QUOTE) {
+					return -1;
+				}
+				if (i == lineEnd || buffer.get(i) == CSVTokenizer.SEPARATOR) {
+					if (count == fieldEnds.length) {
+						int[] larger = new int[count * 2];
+						System.arraycopy(fieldEnds, 0, larger, 0, count);
+						fieldEnds = larger;
+					}
+					fieldEnds[count++] = i;
+				}
+			}
+			while (count > 0 && fieldEnds[count - 1] == fieldStart(count - 1)) {
+				--count;
+			}
+			return count == 0 && lineStart == lineEnd ? 1 : count;
+		}
+		
+		private int fieldStart(int field) {
+			return field == 0 ? lineStart : fieldEnds[field - 1] + 1;
+		}
+		
+		/**
+		 * Parses the current line, with the same validation, in the same 
+		 * order, as {@link CSVParser}; or hands it to the base class if
+		 * it holds quoted fields.
+		 */
+		private Invoice parseInvoice() {
+			int fields = findFields();
+			if (fields == -1) {
+				return quotedLineParser.apply(line());
+			} else if (fields >= INVOICE_MIN_COLUMNS) {
+				try {
+					int number = ByteFields.parseInt(buffer, 
+							fieldStart(INVOICE_NUMBER_COLUMN), 
+							fieldEnds[INVOICE_NUMBER_COLUMN]);
+					double amount = ByteFields.parseAmount(buffer, 
+							fieldStart(INVOICE_AMOUNT_COLUMN), 
+							fieldEnds[INVOICE_AMOUNT_COLUMN]);
+					LocalDate date = ByteFields.parseISODate(buffer, 
+							fieldStart(INVOICE_DATE_COLUMN), 
+							fieldEnds[INVOICE_DATE_COLUMN]);
+					LocalDate paidDate = fields > INVOICE_PAID_DATE_COLUMN
+							? ByteFields.parseISODate(buffer, 
+								fieldStart(INVOICE_PAID_DATE_COLUMN), 
+								fieldEnds[INVOICE_PAID_DATE_COLUMN])
+							: null;
+					
+					Customer customer = customers.get(buffer, 
+							fieldStart(INVOICE_FIRST_NAME_COLUMN), 
+							fieldEnds[INVOICE_LAST_NAME_COLUMN],
+							fieldEnds[INVOICE_FIRST_NAME_COLUMN]);
+					if (customer != null) {
+						return new Invoice(number, customer, amount, date, paidDate);
+					} else {
+						String line = line();
+						log.warning(() -> 
+							"Unknown customer, skipping invoice: " + line);
+					}
+				} catch (Exception ex) {
+					String line = line();
+					log.warning(() -> 
+						"Couldn't parse values, skipping invoice: " + line);
+				}
+			} else {
+				String line = line();
+				log.warning(() -> 
+					"Incorrect number of fields, skipping invoice: " + line);
+			}
+			
+			return null;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super Invoice> action) {
+			try {
+				while (nextLine()) {
+					Invoice invoice = parseInvoice();
+					if (invoice != null) {
+						action.accept(invoice);
+						return true;
+					}
+				}
+				return false;
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+		
+		public void close() {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+	}
+}
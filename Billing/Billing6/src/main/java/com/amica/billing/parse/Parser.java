@@ -1,5 +1,8 @@
 package com.amica.billing.parse;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -10,6 +13,9 @@ import com.amica.billing.Invoice;
  * Represents a component that can read text lines and translate them into
  * {@link Customer} and {@link Invoice} objects. The text format is not 
  * specified, but implementations may be dedicated to specific formats. 
+ * Whole files are read and written through default methods that work
+ * in lines; a parser of a format that isn't line-based, such as the
+ * {@link SnapshotParser}, overrides these instead.
  * 
  * @author Will Provost
  */
@@ -20,6 +26,15 @@ public interface Parser {
 	 */
 	public Stream<Customer> parseCustomers(Stream<String> customerLines);
 
+	/**
+	 * Returns a stream of {@link Customer}s read from the given file.
+	 * Close the stream when done.
+	 */
+	public default Stream<Customer> parseCustomers(Path customersFile) 
+			throws IOException {
+		return parseCustomers(Files.lines(customersFile));
+	}
+
 	/**
 	 * Returns a stream of {@link Invoice}s, one for each text representation.
 	 * The provided map of customer names to customer records is used to 
@@ -30,6 +45,16 @@ public interface Parser {
 	public Stream<Invoice> parseInvoices(Stream<String> invoiceLines, 
 			Map<String, Customer> customers);
 	
+	/**
+	 * Returns a stream of {@link Invoice}s read from the given file.
+	 * By default we read it as text lines; implementations can override
+	 * this to read the file more directly. Close the stream when done.
+	 */
+	public default Stream<Invoice> parseInvoices(Path invoicesFile, 
+			Map<String, Customer> customers) throws IOException {
+		return parseInvoices(Files.lines(invoicesFile), customers);
+	}
+	
 	/**
 	 * Writes the given stream of customers to the given writer. 
 	 */
@@ -39,4 +64,28 @@ public interface Parser {
 	 * Writes the given stream of invoices to the given writer.
 	 */
 	public Stream<String> produceInvoices(Stream<Invoice> invoices);
+	
+	/**
+	 * Replaces the given file with the given customers, as a {@link DurableFile}.
+	 */
+	public default void writeCustomers(Path customersFile, 
+			Stream<Customer> customers) throws IOException {
+		new DurableFile(customersFile).replace(produceCustomers(customers));
+	}
+	
+	/**
+	 * Replaces the given file with the given invoices, as a {@link DurableFile}.
+	 */
+	public default void writeInvoices(Path invoicesFile, 
+			Stream<Invoice> invoices) throws IOException {
+		new DurableFile(invoicesFile).replace(produceInvoices(invoices));
+	}
+	
+	/**
+	 * Indicates whether the format is made of lines, one per record,
+	 * so that files can be split into chunks or journaled a line at a time.
+	 */
+	public default boolean isLineBased() {
+		return true;
+	}
 }
@@ -1,13 +1,24 @@
 package com.amica.billing.parse;
 
-import java.io.FileWriter;
-import java.io.PrintWriter;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -25,7 +36,22 @@ import lombok.extern.java.Log;
  * Configurable filenames are found and loaded, and an appropriate
  * {@link Parser} is derived from the {@link ParserFactory}.
  * Acts as a write-through cache, but saves the whole collection
- * each time any element is updated.
+ * each time any element is updated. Each save replaces the file
+ * atomically, as a {@link DurableFile}; and with a group-commit window
+ * configured, a burst of saves within the window makes a single write.
+ * 
+ * In parallel-loading mode, we split the invoices file into line-aligned
+ * {@link FileChunks chunks} and parse them on the common fork-join pool,
+ * with whatever parser is configured. 
+ * 
+ * A parser of a format that isn't line-based, such as the 
+ * {@link SnapshotParser}, reads and writes whole files only; we can't
+ * load it in parallel or journal it, and ignore those settings for it.
+ * 
+ * In journaling mode, each save instead appends the one changed record
+ * to a {@link RecordJournal} beside the data file; once enough records
+ * have accumulated, a background thread compacts them back into the
+ * data file. Loading replays the data file and then the journal.
  *
  * @author Will Provost
  */
@@ -33,6 +59,8 @@ import lombok.extern.java.Log;
 @Log
 public class ParserPersistence extends CachingPersistence {
 
+	public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+	
 	@Value("${ParserPersistence.customersFile}")
 	@Setter
 	private String customersFile;
@@ -40,19 +68,88 @@ public class ParserPersistence extends CachingPersistence {
 	@Value("${ParserPersistence.invoicesFile}")
 	@Setter
 	private String invoicesFile;
+	
+	@Value("${ParserPersistence.groupCommitMillis:0}")
+	@Setter
+	private long groupCommitMillis;
+	
+	@Value("${ParserPersistence.parallelLoading:false}")
+	@Setter
+	private boolean parallelLoading;
+	
+	@Value("${ParserPersistence.chunkSize:" + FileChunks.DEFAULT_CHUNK_SIZE + "}")
+	@Setter
+	private int chunkSize = FileChunks.DEFAULT_CHUNK_SIZE;
+	
+	@Value("${ParserPersistence.journaling:false}")
+	@Setter
+	private boolean journaling;
+	
+	@Value("${ParserPersistence.compactionThreshold:" + 
+			DEFAULT_COMPACTION_THRESHOLD + "}")
+	@Setter
+	private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
 
 	private Parser parser;
+	private RecordJournal customerJournal;
+	private RecordJournal invoiceJournal;
+	private ExecutorService compactor;
+	private GroupCommit customersCommit;
+	private GroupCommit invoicesCommit;
 	
 	/**
 	 * We trigger immediately loading when configured as a Spring bean,
 	 * finding an appropriate parser and calling the superclass method.
+	 * In journaling mode, we open journals for both files first;
+	 * otherwise we set up group commits for whole-file writes.
 	 */
 	@Override
 	@PostConstruct
 	public void load() {
 		parser = ParserFactory.createParser(customersFile);
+		if (!parser.isLineBased() && (journaling || parallelLoading)) {
+			log.warning(() -> "Can't journal or load in parallel with " + 
+				parser.getClass().getSimpleName() + "; reading and writing whole files.");
+			journaling = parallelLoading = false;
+		}
+		closeCommits();
+		if (!journaling) {
+			Duration window = Duration.ofMillis(groupCommitMillis);
+			customersCommit = new GroupCommit(customersFile, () -> 
+				parser.writeCustomers(Paths.get(customersFile), 
+					getCustomers().values().stream()), 
+				window);
+			invoicesCommit = new GroupCommit(invoicesFile, () -> 
+				parser.writeInvoices(Paths.get(invoicesFile), 
+					getInvoices().values().stream()), 
+				window);
+		} else {
+			closeJournals();
+			customerJournal = new RecordJournal(customersFile);
+			invoiceJournal = new RecordJournal(invoicesFile);
+			if (compactor == null) {
+				compactor = Executors.newSingleThreadExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "ParserPersistence compactor");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+		}
 		super.load();
 	}
+	
+	/**
+	 * Helper to keep only the last of any records with the same key,
+	 * as when replaying a journal.
+	 */
+	private static <K,V> Stream<V> latestByKey
+			(Stream<V> records, Function<V,K> keyMapper) {
+		try ( Stream<V> stream = records; ) {
+			return stream.collect(Collectors.toMap(keyMapper, Function.identity(), 
+					(older, newer) -> newer, LinkedHashMap::new))
+				.values().stream();
+		}
+	}
 
 	/**
 	 * Load customers from the configured file, and let the superclass
@@ -60,7 +157,11 @@ public class ParserPersistence extends CachingPersistence {
 	 */
 	protected Stream<Customer> readCustomers() {
 		try {
-			return parser.parseCustomers(Files.lines(Paths.get(customersFile)));
+			if (journaling) {
+				return latestByKey(parser.parseCustomers
+						(customerJournal.replay()), Customer::getName);
+			}
+			return parser.parseCustomers(Paths.get(customersFile));
 		} catch (Exception ex) {
 			log.log(Level.SEVERE, "Couldn't load customers.", ex);
 		}
@@ -73,39 +174,199 @@ public class ParserPersistence extends CachingPersistence {
 	 */
 	protected Stream<Invoice> readInvoices() {
 		try {
-			return parser.parseInvoices
-					(Files.lines(Paths.get(invoicesFile)), getCustomers());
+			if (journaling) {
+				return latestByKey(parser.parseInvoices
+						(invoiceJournal.replay(), getCustomers()), 
+					Invoice::getNumber);
+			}
+			if (parallelLoading) {
+				return readInvoicesInParallel();
+			}
+			return parser.parseInvoices(Paths.get(invoicesFile), getCustomers());
 		} catch (Exception ex) {
 			log.log(Level.SEVERE, "Couldn't load invoices.", ex);
 		}
 		return Stream.empty();
 	}
+	
+	/**
+	 * Parses chunks of the invoices file as a parallel stream, each chunk
+	 * by itself. The parser reports bad lines and unknown customers as
+	 * it would reading the file sequentially, and the superclass will 
+	 * reject duplicate invoice numbers in the same way.
+	 */
+	private Stream<Invoice> readInvoicesInParallel() throws IOException {
+		FileChunks chunks = new FileChunks(Paths.get(invoicesFile));
+		Map<String,Customer> customers = getCustomers();
+		return chunks.split(chunkSize).parallelStream()
+				.flatMap(chunk -> parser.parseInvoices(chunks.lines(chunk), customers));
+	}
+	
+	private Stream<String> allCustomers() {
+		return parser.produceCustomers(getCustomers().values().stream());
+	}
+	
+	private Stream<String> allInvoices() {
+		return parser.produceInvoices(getInvoices().values().stream());
+	}
 
 	/**
-	 * Re-write the whole file when any element changes.
+	 * Re-write the whole file when any element changes,
+	 * or journal the one changed customer.
+	 * 
+	 * @throws java.io.UncheckedIOException If we write immediately, or append
+	 *   to the journal, and that fails; the file will then still hold its
+	 *   prior content
 	 */
 	protected void writeCustomer(Customer customer) {
-		try ( PrintWriter out = new PrintWriter(new FileWriter(customersFile)); ) {
-			parser.produceCustomers(getCustomers().values().stream())
-					.forEach(out::println);
-		} catch (Exception ex) {
-			log.log(Level.WARNING, ex, 
-					() -> "Couldn't open " + customersFile + " in write mode.");
+		if (journaling) {
+			journal(customerJournal, 
+					parser.produceCustomers(Stream.of(customer)), this::allCustomers);
+		} else {
+			customersCommit.request();
 		}
-		
 	}
 
 	/**
-	 * Re-write the whole file when any element changes.
+	 * Re-write the whole file when any element changes,
+	 * or journal the one changed invoice.
+	 * 
+	 * @throws java.io.UncheckedIOException If we write immediately, or append
+	 *   to the journal, and that fails; the file will then still hold its
+	 *   prior content
 	 */
 	protected void writeInvoice(Invoice invoice) {
-		try ( PrintWriter out = new PrintWriter(new FileWriter(invoicesFile)); ) {
-			parser.produceInvoices(getInvoices().values().stream())
-					.forEach(out::println);
-		} catch (Exception ex) {
-			log.log(Level.WARNING, ex, 
-					() -> "Couldn't open " + invoicesFile + " in write mode.");
+		if (journaling) {
+			journal(invoiceJournal, 
+					parser.produceInvoices(Stream.of(invoice)), this::allInvoices);
+		} else {
+			invoicesCommit.request();
+		}
+	}
+	
+	/**
+	 * Re-write the whole file once for the batch,
+	 * or journal each customer in it.
+	 */
+	@Override
+	protected void writeCustomers(List<Customer> batch) {
+		if (journaling) {
+			super.writeCustomers(batch);
+		} else {
+			customersCommit.request();
+		}
+	}
+	
+	/**
+	 * Re-write the whole file once for the batch,
+	 * or journal each invoice in it.
+	 */
+	@Override
+	protected void writeInvoices(List<Invoice> batch) {
+		if (journaling) {
+			super.writeInvoices(batch);
+		} else {
+			invoicesCommit.request();
+		}
+	}
+	
+	/**
+	 * Appends the record to the journal, and schedules compaction
+	 * if the journal has grown long enough.
+	 * 
+	 * @throws java.io.UncheckedIOException If the append or the sync fails
+	 */
+	private void journal(RecordJournal journal, Stream<String> record,
+			Supplier<Stream<String>> snapshot) {
+		try {
+			for (Iterator<String> lines = record.iterator(); lines.hasNext(); ) {
+				journal.append(lines.next());
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException
+				("Couldn't append to journal for " + journal.getBasePath(), ex);
 		}
 		
+		if (journal.getRecords() >= compactionThreshold && 
+				journal.requestCompaction()) {
+			compactor.execute(() -> compact(journal, snapshot));
+		}
+	}
+	
+	private void compact(RecordJournal journal, Supplier<Stream<String>> snapshot) {
+		try {
+			journal.compact(snapshot);
+		} catch (IOException ex) {
+			log.log(Level.WARNING, ex, 
+					() -> "Couldn't compact journal for " + journal.getBasePath());
+		}
+	}
+	
+	/**
+	 * In journaling mode, compacts both journals into their data files now,
+	 * on the caller's thread.
+	 */
+	public void compact() {
+		if (journaling) {
+			compact(customerJournal, this::allCustomers);
+			compact(invoiceJournal, this::allInvoices);
+		}
+	}
+	
+	/**
+	 * Writes any changes still waiting out a group-commit window.
+	 */
+	public void flush() {
+		for (GroupCommit commit : new GroupCommit[] 
+				{ customersCommit, invoicesCommit }) {
+			if (commit != null) {
+				commit.flush();
+			}
+		}
+	}
+	
+	private void closeCommits() {
+		for (GroupCommit commit : new GroupCommit[] 
+				{ customersCommit, invoicesCommit }) {
+			if (commit != null) {
+				commit.close();
+			}
+		}
+		customersCommit = invoicesCommit = null;
+	}
+	
+	private void closeJournals() {
+		for (RecordJournal journal : new RecordJournal[] 
+				{ customerJournal, invoiceJournal }) {
+			if (journal != null) {
+				try {
+					journal.close();
+				} catch (IOException ex) {
+					log.log(Level.WARNING, ex, 
+						() -> "Couldn't close journal for " + journal.getBasePath());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes any changes still waiting out a group-commit window; or,
+	 * in journaling mode, waits for any background compaction, 
+	 * compacts what remains, and closes the journals.
+	 */
+	@PreDestroy
+	public void close() {
+		closeCommits();
+		if (compactor != null) {
+			compactor.shutdown();
+			try {
+				compactor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			compactor = null;
+		}
+		compact();
+		closeJournals();
 	}
 }
@@ -0,0 +1,144 @@
+package com.amica.billing.parse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+
+/**
+ * Write-ahead journal for one data file. Each change is appended as one
+ * record -- a line in the data file's own format -- and forced to disk,
+ * and a later record for the same key supersedes an earlier one. 
+ * Replaying the base file followed by the journal recovers the data set.
+ * 
+ * Compaction rewrites the base file from a snapshot of the current data
+ * and discards the journal. We first rotate the journal aside, so appends
+ * can continue into a fresh journal while the base file is rewritten; 
+ * the rotated journal is only removed once the new base file is in place.
+ * 
+ * @author Will Provost
+ */
+public class RecordJournal implements Closeable {
+
+	public static final String JOURNAL_SUFFIX = ".journal";
+	public static final String COMPACTING_SUFFIX = ".compacting";
+	
+	@Getter
+	private Path basePath;
+	private Path journalPath;
+	private Path compactingPath;
+	private FileChannel channel;
+	
+	@Getter
+	private volatile int records;
+	
+	private Object compactionLock = new Object();
+	private AtomicBoolean compactionPending = new AtomicBoolean();
+	
+	/**
+	 * Provide the name of the base data file; the journal is kept 
+	 * alongside it.
+	 */
+	public RecordJournal(String baseFile) {
+		basePath = Paths.get(baseFile);
+		journalPath = Paths.get(baseFile + JOURNAL_SUFFIX);
+		compactingPath = Paths.get(baseFile + COMPACTING_SUFFIX);
+	}
+	
+	private static Stream<String> linesIfPresent(Path path) throws IOException {
+		return Files.exists(path) ? Files.lines(path) : Stream.empty();
+	}
+	
+	/**
+	 * Returns all records, oldest first: those in the base file, then any
+	 * in a journal left over from an interrupted compaction, then those in
+	 * the current journal.
+	 */
+	public Stream<String> replay() throws IOException {
+		return Stream.of(linesIfPresent(basePath), 
+				linesIfPresent(compactingPath), linesIfPresent(journalPath))
+			.reduce(Stream::concat).get();
+	}
+	
+	/**
+	 * Appends one record to the journal and forces it to disk.
+	 */
+	public synchronized void append(String record) throws IOException {
+		if (channel == null) {
+			channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, 
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap
+				((record + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		channel.force(false);
+		++records;
+	}
+	
+	/**
+	 * Marks this journal as due for compaction, returning false if
+	 * it was already so marked.
+	 */
+	public boolean requestCompaction() {
+		return compactionPending.compareAndSet(false, true);
+	}
+	
+	/**
+	 * Moves the current journal aside, so that later appends start a new one.
+	 * If an earlier compaction failed and left its journal behind, we add
+	 * the current journal to that one rather than overwrite it.
+	 */
+	private synchronized void rotate() throws IOException {
+		close();
+		if (Files.exists(journalPath)) {
+			if (Files.exists(compactingPath)) {
+				Files.write(compactingPath, Files.readAllBytes(journalPath), 
+						StandardOpenOption.APPEND);
+				Files.delete(journalPath);
+			} else {
+				Files.move(journalPath, compactingPath);
+			}
+		}
+		records = 0;
+	}
+	
+	/**
+	 * Rewrites the base file from the given snapshot of current records,
+	 * and discards journaled records. Every record journaled before this
+	 * call must be reflected in the snapshot, which is taken after the
+	 * journal has been rotated.
+	 */
+	public void compact(Supplier<Stream<String>> snapshot) throws IOException {
+		synchronized(compactionLock) {
+			compactionPending.set(false);
+			rotate();
+			
+			try ( Stream<String> lines = snapshot.get(); ) {
+				new DurableFile(basePath).replace(lines);
+			}
+			Files.deleteIfExists(compactingPath);
+		}
+	}
+	
+	/**
+	 * Closes the journal file; a later append will re-open it.
+	 */
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+}
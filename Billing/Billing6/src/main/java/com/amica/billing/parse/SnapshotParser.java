@@ -0,0 +1,273 @@
+package com.amica.billing.parse;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.Terms;
+
+import lombok.extern.java.Log;
+
+/**
+ * Reads and writes customers and invoices as binary snapshots, 
+ * which load much faster than text: there's nothing to split or parse,
+ * and each column is read from the mapped file in one bulk copy.
+ * 
+ * Each file starts with a magic number, a format version, and a byte
+ * that says whether it holds customers or invoices, followed by the
+ * record count and then one column per property. Strings are stored as
+ * an array of end offsets into one block of UTF-8 bytes, and dates as 
+ * epoch days. An invoices file carries its own dictionary of customer
+ * names, and refers to customers by index into that dictionary, so it
+ * doesn't depend on the order of the customers file.
+ * 
+ * Snapshots are not made of lines, so the line-based methods of the
+ * {@link Parser} interface are not supported.
+ * 
+ * @author Will Provost
+ */
+@Log
+public class SnapshotParser implements Parser {
+
+	public static final int MAGIC = 0x42494C4C; // "BILL"
+	public static final short VERSION = 1;
+	public static final byte CUSTOMERS = 'C';
+	public static final byte INVOICES = 'I';
+	public static final int NO_DATE = Integer.MIN_VALUE;
+	
+	/**
+	 * Checks the file's header and returns it as a buffer, 
+	 * positioned at the record count.
+	 */
+	private static ByteBuffer open(Path path, byte kind) throws IOException {
+		try ( FileChannel channel = FileChannel.open
+				(path, StandardOpenOption.READ); ) {
+			ByteBuffer buffer = channel.map
+					(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < Integer.BYTES + Short.BYTES + 1 ||
+					buffer.getInt() != MAGIC) {
+				throw new IOException(path + " is not a billing snapshot.");
+			}
+			short version = buffer.getShort();
+			if (version != VERSION) {
+				throw new IOException("Can't read version " + version + 
+						" of the snapshot format, in " + path);
+			}
+			if (buffer.get() != kind) {
+				throw new IOException(path + " is not a snapshot of " + 
+						(kind == CUSTOMERS ? "customers." : "invoices."));
+			}
+			return buffer;
+		}
+	}
+	
+	private static int[] readInts(ByteBuffer buffer, int count) {
+		int[] column = new int[count];
+		buffer.asIntBuffer().get(column);
+		buffer.position(buffer.position() + count * Integer.BYTES);
+		return column;
+	}
+	
+	private static double[] readDoubles(ByteBuffer buffer, int count) {
+		double[] column = new double[count];
+		buffer.asDoubleBuffer().get(column);
+		buffer.position(buffer.position() + count * Double.BYTES);
+		return column;
+	}
+	
+	private static String[] readStrings(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		int[] ends = readInts(buffer, count);
+		byte[] bytes = new byte[count == 0 ? 0 : ends[count - 1]];
+		buffer.get(bytes);
+		
+		String[] column = new String[count];
+		for (int i = 0, start = 0; i < count; start = ends[i++]) {
+			column[i] = new String(bytes, start, ends[i] - start, 
+					StandardCharsets.UTF_8);
+		}
+		return column;
+	}
+	
+	private static void writeHeader(DataOutputStream out, byte kind, int count) 
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		out.writeByte(kind);
+		out.writeInt(count);
+	}
+	
+	private static void writeStrings(DataOutputStream out, List<String> column)
+			throws IOException {
+		byte[][] encoded = new byte[column.size()][];
+		out.writeInt(encoded.length);
+		int end = 0;
+		for (int i = 0; i < encoded.length; ++i) {
+			encoded[i] = column.get(i).getBytes(StandardCharsets.UTF_8);
+			end += encoded[i].length;
+			out.writeInt(end);
+		}
+		for (byte[] bytes : encoded) {
+			out.write(bytes);
+		}
+	}
+	
+	private static Customer createCustomer(String name, Terms terms) {
+		int space = name.indexOf(' ');
+		return new Customer(name.substring(0, space), 
+				name.substring(space + 1), terms);
+	}
+	
+	/**
+	 * Reads customers from a snapshot. Any with terms we don't recognize 
+	 * are skipped, with a warning.
+	 */
+	@Override
+	public Stream<Customer> parseCustomers(Path customersFile) throws IOException {
+		ByteBuffer buffer = open(customersFile, CUSTOMERS);
+		int count = buffer.getInt();
+		String[] names = readStrings(buffer);
+		int[] days = readInts(buffer, count);
+		
+		return IntStream.range(0, count).mapToObj(i -> {
+			Terms terms = Terms.fromDays(days[i]);
+			if (terms == null) {
+				log.warning(() -> 
+					"Couldn't parse terms value, skipping customer: " + names[i]);
+				return null;
+			}
+			return createCustomer(names[i], terms);
+		}).filter(Objects::nonNull);
+	}
+	
+	/**
+	 * Reads invoices from a snapshot. Any whose customers aren't in
+	 * the given map are skipped, with a warning.
+	 */
+	@Override
+	public Stream<Invoice> parseInvoices(Path invoicesFile, 
+			Map<String, Customer> customers) throws IOException {
+		ByteBuffer buffer = open(invoicesFile, INVOICES);
+		int count = buffer.getInt();
+		String[] dictionary = readStrings(buffer);
+		int[] numbers = readInts(buffer, count);
+		int[] customerIndexes = readInts(buffer, count);
+		double[] amounts = readDoubles(buffer, count);
+		int[] issueDays = readInts(buffer, count);
+		int[] paidDays = readInts(buffer, count);
+		
+		Customer[] resolved = Stream.of(dictionary)
+				.map(customers::get).toArray(Customer[]::new);
+		return IntStream.range(0, count).mapToObj(i -> {
+			Customer customer = resolved[customerIndexes[i]];
+			if (customer == null) {
+				log.warning(() -> "Unknown customer " + 
+					dictionary[customerIndexes[i]] + 
+					", skipping invoice: " + numbers[i]);
+				return null;
+			}
+			return new Invoice(numbers[i], customer, amounts[i], 
+					LocalDate.ofEpochDay(issueDays[i]), 
+					paidDays[i] != NO_DATE 
+						? LocalDate.ofEpochDay(paidDays[i]) : null);
+		}).filter(Objects::nonNull);
+	}
+	
+	/**
+	 * Replaces the given file with a snapshot of the given customers.
+	 */
+	@Override
+	public void writeCustomers(Path customersFile, Stream<Customer> customers) 
+			throws IOException {
+		List<Customer> records = customers.collect(Collectors.toList());
+		new DurableFile(customersFile).replace(stream -> {
+			DataOutputStream out = new DataOutputStream(stream);
+			writeHeader(out, CUSTOMERS, records.size());
+			writeStrings(out, records.stream()
+					.map(Customer::getName).collect(Collectors.toList()));
+			for (Customer customer : records) {
+				out.writeInt(customer.getTerms().getDays());
+			}
+			out.flush();
+		});
+	}
+
+	/**
+	 * Replaces the given file with a snapshot of the given invoices.
+	 */
+	@Override
+	public void writeInvoices(Path invoicesFile, Stream<Invoice> invoices) 
+			throws IOException {
+		List<Invoice> records = invoices.collect(Collectors.toList());
+		Map<String,Integer> indexes = new LinkedHashMap<>();
+		for (Invoice invoice : records) {
+			indexes.putIfAbsent(invoice.getCustomer().getName(), indexes.size());
+		}
+		List<String> dictionary = new ArrayList<>(indexes.keySet());
+		
+		new DurableFile(invoicesFile).replace(stream -> {
+			DataOutputStream out = new DataOutputStream(stream);
+			writeHeader(out, INVOICES, records.size());
+			writeStrings(out, dictionary);
+			for (Invoice invoice : records) {
+				out.writeInt(invoice.getNumber());
+			}
+			for (Invoice invoice : records) {
+				out.writeInt(indexes.get(invoice.getCustomer().getName()));
+			}
+			for (Invoice invoice : records) {
+				out.writeDouble(invoice.getAmount());
+			}
+			for (Invoice invoice : records) {
+				out.writeInt((int) invoice.getIssueDate().toEpochDay());
+			}
+			for (Invoice invoice : records) {
+				out.writeInt(invoice.getPaidDate()
+						.map(date -> (int) date.toEpochDay()).orElse(NO_DATE));
+			}
+			out.flush();
+		});
+	}
+	
+	@Override
+	public boolean isLineBased() {
+		return false;
+	}
+	
+	private static UnsupportedOperationException notLineBased() {
+		return new UnsupportedOperationException
+				("Snapshots can't be read or written as lines of text.");
+	}
+	
+	public Stream<Customer> parseCustomers(Stream<String> customerLines) {
+		throw notLineBased();
+	}
+	
+	public Stream<Invoice> parseInvoices(Stream<String> invoiceLines, 
+			Map<String, Customer> customers) {
+		throw notLineBased();
+	}
+	
+	public Stream<String> produceCustomers(Stream<Customer> customers) {
+		throw notLineBased();
+	}
+	
+	public Stream<String> produceInvoices(Stream<Invoice> invoices) {
+		throw notLineBased();
+	}
+}
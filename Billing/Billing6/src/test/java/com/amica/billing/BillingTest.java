@@ -5,6 +5,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.mockito.hamcrest.MockitoHamcrest.argThat;
 
@@ -46,6 +47,15 @@ public class BillingTest {
 		mockPersistence = mock(Persistence.class);
 		when(mockPersistence.getCustomers()).thenReturn(GOOD_CUSTOMERS_MAP);
 		when(mockPersistence.getInvoices()).thenReturn(GOOD_INVOICES_MAP);
+		when(mockPersistence.nextInvoiceNumber())
+				.thenReturn(GOOD_INVOICES.size() + 1);
+		when(mockPersistence.getInvoicesForCustomer(anyString()))
+			.thenAnswer(call -> GOOD_INVOICES.stream().filter(invoice -> 
+				invoice.getCustomer().getName().equals(call.getArgument(0))));
+		when(mockPersistence.getVolumeForCustomer(anyString()))
+			.thenAnswer(call -> GOOD_INVOICES.stream().filter(invoice -> 
+				invoice.getCustomer().getName().equals(call.getArgument(0)))
+					.mapToDouble(Invoice::getAmount).sum());
 		
 		billing = new Billing(mockPersistence);
 		
@@ -98,6 +108,18 @@ public class BillingTest {
 		assertThat(billing.getOverdueInvoices(AS_OF_DATE), hasNumbers(4, 6, 1));
 	}
 	
+	@Test
+	public void testGetInvoicesForCustomer() {
+		assertThat(billing.getInvoicesForCustomer(GOOD_CUSTOMERS.get(1)),
+				hasNumbers(2, 3, 4));
+	}
+	
+	@Test
+	public void testGetVolumeForCustomer() {
+		assertThat(billing.getVolumeForCustomer(GOOD_CUSTOMERS.get(2)),
+				closeTo(1100.0, .0001));
+	}
+	
 	@Test
 	public void testGetCustomersAndVolume() {
 		List<Billing.CustomerAndVolume> list = 
@@ -166,6 +188,7 @@ public class BillingTest {
 	public void testCreateInvoice_NoSuchCustomer() {
 		assertThrows(IllegalArgumentException.class, 
 				() -> billing.createInvoice("Customer Five", 999));
+		verify(mockPersistence, never()).nextInvoiceNumber();
 	}
 	
 	/**
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import com.amica.billing.parse.CSVParser;
 import com.amica.billing.parse.FlatParser;
 import com.amica.billing.parse.Parser;
+import com.amica.billing.parse.SnapshotParser;
 
 /**
  * Unit test for the {@link ParserFactory}
@@ -46,6 +47,11 @@ public class ParserFactoryTest {
 		assertThat(createParser("any.flat"), instanceOf(FlatParser.class));
 	}
 	
+	@Test
+	public void testCreateParser_SnapshotFilename () {
+		assertThat(createParser("any.snapshot"), instanceOf(SnapshotParser.class));
+	}
+	
 	@Test
 	public void testCreateParser_FlatFilename_UpperCase() {
 		assertThat(createParser("any.FLAT"), instanceOf(FlatParser.class));
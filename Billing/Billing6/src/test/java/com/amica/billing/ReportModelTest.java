@@ -0,0 +1,157 @@
+package com.amica.billing;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link ReportModel}. We build the model from copies of
+ * the unit-test data set, so that we can change invoices freely, and check
+ * that each change lands in the right place in each ordering.
+ * 
+ * @author Will Provost
+ */
+public class ReportModelTest {
+
+	private Map<Integer,Invoice> invoices;
+	private ReportModel model;
+	
+	private static Integer[] numbers(List<Invoice> invoices) {
+		return invoices.stream().map(Invoice::getNumber).toArray(Integer[]::new);
+	}
+	
+	private List<String> volumes() {
+		return model.getCustomersAndVolume().stream()
+				.map(cv -> cv.getKey().getName() + "=" + cv.getValue())
+				.toList();
+	}
+	
+	@BeforeEach
+	public void setUp() {
+		invoices = GOOD_INVOICES.stream()
+				.map(inv -> new Invoice(inv.getNumber(), inv.getCustomer(), 
+					inv.getAmount(), inv.getIssueDate(), inv.getPaidDate()))
+				.collect(Collectors.toMap(Invoice::getNumber, Function.identity()));
+		
+		Billing billing = mock(Billing.class);
+		when(billing.getCustomers()).thenReturn(GOOD_CUSTOMERS_MAP);
+		when(billing.getInvoices()).thenReturn(invoices);
+		model = new ReportModel(billing, AS_OF_DATE);
+	}
+	
+	@Test
+	public void testInitialModel() {
+		assertThat(numbers(model.getInvoicesOrderedByNumber()),
+				arrayContaining(1, 2, 3, 4, 5, 6));
+		assertThat(numbers(model.getInvoicesGroupedByCustomer()
+				.get(GOOD_CUSTOMERS.get(1))), arrayContaining(2, 3, 4));
+		assertThat(model.getInvoicesGroupedByCustomer().size(), equalTo(3));
+		assertThat(numbers(model.getOverdueInvoices()), arrayContaining(4, 6, 1));
+		assertThat(volumes(), contains("Customer Three=1100.0", 
+				"Customer Two=900.0", "Customer One=100.0"));
+	}
+	
+	@Test
+	public void testPayInvoice() {
+		Invoice invoice = invoices.get(1);
+		invoice.setPaidDate(Optional.of(invoice.getIssueDate()));
+		model.invoiceChanged(invoice);
+		
+		assertThat(numbers(model.getOverdueInvoices()), arrayContaining(4, 6));
+		assertThat(numbers(model.getInvoicesOrderedByNumber()),
+				arrayContaining(1, 2, 3, 4, 5, 6));
+		assertThat(volumes(), contains("Customer Three=1100.0", 
+				"Customer Two=900.0", "Customer One=100.0"));
+	}
+	
+	@Test
+	public void testCreateInvoice() {
+		model.invoiceChanged(new Invoice(7, GOOD_CUSTOMERS.get(0), 
+				1000, LocalDate.of(2021, 10, 1)));
+		
+		assertThat(numbers(model.getInvoicesOrderedByNumber()),
+				arrayContaining(1, 2, 3, 4, 5, 6, 7));
+		assertThat(numbers(model.getInvoicesGroupedByCustomer()
+				.get(GOOD_CUSTOMERS.get(0))), arrayContaining(1, 7));
+		assertThat(numbers(model.getOverdueInvoices()), 
+				arrayContaining(7, 4, 6, 1));
+		assertThat(volumes(), contains("Customer One=1100.0", 
+				"Customer Three=1100.0", "Customer Two=900.0"));
+	}
+	
+	@Test
+	public void testReplaceInvoice() {
+		model.invoiceChanged(new Invoice(3, GOOD_CUSTOMERS.get(0), 
+				50, LocalDate.of(2022, 1, 6)));
+		
+		assertThat(numbers(model.getInvoicesGroupedByCustomer()
+				.get(GOOD_CUSTOMERS.get(0))), arrayContaining(1, 3));
+		assertThat(numbers(model.getInvoicesGroupedByCustomer()
+				.get(GOOD_CUSTOMERS.get(1))), arrayContaining(2, 4));
+		assertThat(volumes(), contains("Customer Three=1100.0", 
+				"Customer Two=600.0", "Customer One=150.0"));
+	}
+	
+	@Test
+	public void testCreateCustomer() {
+		model.customerChanged(new Customer("Customer", "Four", Terms.CASH));
+		model.customerChanged(GOOD_CUSTOMERS.get(0));
+		
+		assertThat(volumes(), contains("Customer Three=1100.0", 
+				"Customer Two=900.0", "Customer One=100.0", "Customer Four=0.0"));
+		assertThat(model.getInvoicesGroupedByCustomer().size(), equalTo(3));
+	}
+	
+	@Test
+	public void testReplaceInvoice_NoDrift() {
+		Customer customer = new Customer("Customer", "Four", Terms.CASH);
+		double[] amounts = { 0.1, 0.7, 0.2 };
+		for (int i = 0; i < amounts.length; ++i) {
+			model.invoiceChanged(new Invoice
+					(7 + i, customer, amounts[i], AS_OF_DATE));
+		}
+		for (int i = 0; i < amounts.length; ++i) {
+			model.invoiceChanged(new Invoice
+					(7 + i, GOOD_CUSTOMERS.get(0), amounts[i], AS_OF_DATE));
+		}
+		
+		assertThat(volumes(), hasItem("Customer Four=0.0"));
+	}
+	
+	@Test
+	public void testParallelBuild() {
+		Map<String,Customer> customers = new HashMap<>(GOOD_CUSTOMERS_MAP);
+		customers.put("Customer Four", new Customer("Customer", "Four", Terms.CASH));
+		Billing billing = mock(Billing.class);
+		when(billing.getCustomers()).thenReturn(customers);
+		when(billing.getInvoices()).thenReturn(invoices);
+		model = new ReportModel(billing, AS_OF_DATE);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ReportModel parallel = new ReportModel(billing, AS_OF_DATE, pool);
+		pool.shutdown();
+		
+		assertThat(parallel.getInvoicesOrderedByNumber(), 
+				equalTo(model.getInvoicesOrderedByNumber()));
+		assertThat(parallel.getInvoicesGroupedByCustomer(), 
+				equalTo(model.getInvoicesGroupedByCustomer()));
+		assertThat(parallel.getOverdueInvoices(), 
+				equalTo(model.getOverdueInvoices()));
+		assertThat(parallel.getCustomersAndVolume(), 
+				equalTo(model.getCustomersAndVolume()));
+		assertThat(volumes(), hasItem("Customer Four=0.0"));
+	}
+}
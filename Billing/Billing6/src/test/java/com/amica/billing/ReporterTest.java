@@ -1,20 +1,40 @@
 package com.amica.billing;
 
 import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import com.amica.billing.Billing.CustomerAndVolume;
+
 /**
  * Unit test for the {@link Reporter}.
  * We set up a mock {@link Billing} object as a source for data,
@@ -64,7 +84,10 @@ public class ReporterTest {
 			Reporter.FILENAME_INVOICES_BY_CUSTOMER,
 			Reporter.FILENAME_OVERDUE_INVOICES,
 			Reporter.FILENAME_CUSTOMERS_AND_VOLUME)
-				.forEach(f -> new File(OUTPUT_FOLDER, f).delete());
+				.forEach(f -> {
+					new File(OUTPUT_FOLDER, f).delete();
+					new File(OUTPUT_FOLDER, f + Reporter.COMPRESSED_EXTENSION).delete();
+				});
 		
 		mockBilling = createMockBilling();
 		
@@ -82,6 +105,11 @@ public class ReporterTest {
 		invoiceListener = invoiceCaptor.getValue();
 	}
 	
+	@AfterEach
+	public void tearDown() {
+		reporter.close();
+	}
+	
 	@Test
 	public void testReportInvoicesOrderedByNumber() {
 		reporter.reportInvoicesOrderedByNumber();
@@ -124,4 +152,171 @@ public class ReporterTest {
 		assertCorrectOutput(Reporter.FILENAME_OVERDUE_INVOICES);
 		assertCorrectOutput(Reporter.FILENAME_CUSTOMERS_AND_VOLUME);
 	}
+	
+	@Test
+	public void testReportAll() {
+		reporter.reportAll();
+		
+		verify(mockBilling, times(1)).getInvoices();
+		verify(mockBilling, never()).getInvoicesOrderedByNumber();
+		verify(mockBilling, never()).getInvoicesGroupedByCustomer();
+		assertCorrectOutput(Reporter.FILENAME_INVOICES_BY_NUMBER);
+		assertCorrectInvoicesByCustomer(EXPECTED_FOLDER,
+				Reporter.FILENAME_INVOICES_BY_CUSTOMER, 
+				GOOD_CUSTOMERS.get(1).getName());
+		assertCorrectOutput(Reporter.FILENAME_OVERDUE_INVOICES);
+		assertCorrectOutput(Reporter.FILENAME_CUSTOMERS_AND_VOLUME);
+	}
+	
+	@Test
+	public void testDebounce_Flush() {
+		reporter.setDebounceWindow(Duration.ofMinutes(1));
+		for (int i = 0; i < 100; ++i) {
+			invoiceListener.accept(null);
+			customerListener.accept(null);
+		}
+		assertThat(new File(OUTPUT_FOLDER, 
+				Reporter.FILENAME_INVOICES_BY_NUMBER).exists(), equalTo(false));
+		
+		reporter.flush();
+		verify(mockBilling, times(1)).getInvoices();
+		verify(mockBilling, times(1)).getCustomersAndVolumeStream();
+		assertCorrectOutput(Reporter.FILENAME_INVOICES_BY_NUMBER);
+		assertCorrectOutput(Reporter.FILENAME_OVERDUE_INVOICES);
+		assertCorrectOutput(Reporter.FILENAME_CUSTOMERS_AND_VOLUME);
+	}
+	
+	@Test
+	public void testDebounce_Background() {
+		reporter.setDebounceWindow(Duration.ofMillis(500));
+		for (int i = 0; i < 100; ++i) {
+			customerListener.accept(null);
+		}
+		verify(mockBilling, timeout(10000)).getCustomersAndVolumeStream();
+		reporter.flush();
+		verify(mockBilling, times(1)).getCustomersAndVolumeStream();
+		assertCorrectOutput(Reporter.FILENAME_CUSTOMERS_AND_VOLUME);
+		assertThat(new File(OUTPUT_FOLDER, 
+				Reporter.FILENAME_INVOICES_BY_NUMBER).exists(), equalTo(false));
+	}
+	
+	@Test
+	public void testReportAll_FailureIsRetried() throws IOException {
+		Path missing = Paths.get(OUTPUT_FOLDER, "missing");
+		if (Files.exists(missing)) {
+			try ( Stream<Path> files = Files.list(missing); ) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(missing);
+		}
+		reporter.setOutputFolder(missing);
+		reporter.setDebounceWindow(Duration.ofMillis(10));
+		invoiceListener.accept(null);
+		verify(mockBilling, timeout(10000)).getInvoices();
+		assertThrows(RuntimeException.class, reporter::flush);
+		
+		Files.createDirectories(missing);
+		reporter.flush();
+		assertThat(Files.exists(missing.resolve
+				(Reporter.FILENAME_INVOICES_BY_NUMBER)), equalTo(true));
+		assertThat(Files.exists(missing.resolve
+				(Reporter.FILENAME_CUSTOMERS_AND_VOLUME)), equalTo(true));
+	}
+	
+	@Test
+	public void testIncremental() {
+		reporter.setIncremental(true);
+		invoiceListener.accept(GOOD_INVOICES.get(0));
+		
+		verify(mockBilling, never()).getInvoicesOrderedByNumber();
+		verify(mockBilling, never()).getCustomersAndVolumeStream();
+		assertCorrectOutput(Reporter.FILENAME_INVOICES_BY_NUMBER);
+		assertCorrectInvoicesByCustomer(EXPECTED_FOLDER,
+				Reporter.FILENAME_INVOICES_BY_CUSTOMER, 
+				GOOD_CUSTOMERS.get(1).getName());
+		assertCorrectOutput(Reporter.FILENAME_OVERDUE_INVOICES);
+		assertCorrectOutput(Reporter.FILENAME_CUSTOMERS_AND_VOLUME);
+	}
+	
+	@Test
+	public void testCompressed() throws IOException {
+		reporter.setCompressed(true);
+		reporter.setBufferSize(16);
+		reporter.reportOverdueInvoices();
+		assertThat(new File(OUTPUT_FOLDER, 
+				Reporter.FILENAME_OVERDUE_INVOICES).exists(), equalTo(false));
+		
+		Path compressed = Paths.get(OUTPUT_FOLDER, 
+				Reporter.FILENAME_OVERDUE_INVOICES + Reporter.COMPRESSED_EXTENSION);
+		try (
+			BufferedReader actual = new BufferedReader(new InputStreamReader
+					(new GZIPInputStream(Files.newInputStream(compressed))));
+			Stream<String> expected = Files.lines(Paths.get
+					(EXPECTED_FOLDER, Reporter.FILENAME_OVERDUE_INVOICES));
+		) {
+			assertThat(actual.lines().collect(Collectors.joining("\n")),
+					equalTo(expected.collect(Collectors.joining("\n"))));
+		}
+	}
+	
+	@Test
+	public void testInvoicesGroupedByCustomer_SameOrderEitherWay() 
+			throws IOException {
+		Map<Customer,List<Invoice>> reversed = new LinkedHashMap<>();
+		reversed.put(GOOD_CUSTOMERS.get(1), GOOD_INVOICES.subList(1, 4));
+		reversed.put(GOOD_CUSTOMERS.get(2), GOOD_INVOICES.subList(4, 6));
+		reversed.put(GOOD_CUSTOMERS.get(0), GOOD_INVOICES.subList(0, 1));
+		when(mockBilling.getInvoicesGroupedByCustomer()).thenReturn(reversed);
+		Path report = Paths.get(OUTPUT_FOLDER, 
+				Reporter.FILENAME_INVOICES_BY_CUSTOMER);
+		
+		reporter.reportInvoicesGroupedByCustomer();
+		String fromQuery = Files.readString(report);
+		reporter.reportAll();
+		String fromModel = Files.readString(report);
+		
+		assertThat(fromModel, equalTo(fromQuery));
+		int one = fromQuery.indexOf(GOOD_CUSTOMERS.get(0).getName());
+		int three = fromQuery.indexOf(GOOD_CUSTOMERS.get(2).getName());
+		int two = fromQuery.indexOf(GOOD_CUSTOMERS.get(1).getName());
+		assertThat(one < three && three < two, equalTo(true));
+	}
+	
+	/**
+	 * Helper to mock one customer's volume, as the query returns it.
+	 */
+	private static CustomerAndVolume mockVolume(Customer customer, double volume) {
+		CustomerAndVolume result = mock(CustomerAndVolume.class);
+		when(result.getCustomer()).thenReturn(customer);
+		when(result.getVolume()).thenReturn(volume);
+		return result;
+	}
+	
+	@Test
+	public void testEqualVolumes_SameFileForEitherChange() throws IOException {
+		Customer one = GOOD_CUSTOMERS.get(0);
+		Customer two = GOOD_CUSTOMERS.get(1);
+		Invoice invoice = new Invoice(1, one, 500, LocalDate.of(2022, 1, 4));
+		when(mockBilling.getCustomers()).thenReturn
+				(Map.of(one.getName(), one, two.getName(), two));
+		when(mockBilling.getInvoices()).thenReturn(Map.of(1, invoice, 
+				2, new Invoice(2, two, 500, LocalDate.of(2022, 1, 4))));
+		List<CustomerAndVolume> volumes = 
+				List.of(mockVolume(two, 500), mockVolume(one, 500));
+		when(mockBilling.getCustomersAndVolumeStream())
+				.thenAnswer(invocation -> volumes.stream());
+		Path report = Paths.get(OUTPUT_FOLDER, 
+				Reporter.FILENAME_CUSTOMERS_AND_VOLUME);
+		
+		customerListener.accept(one);
+		String afterCustomerChange = Files.readString(report);
+		invoiceListener.accept(invoice);
+		String afterInvoiceChange = Files.readString(report);
+		
+		assertThat(afterInvoiceChange, equalTo(afterCustomerChange));
+		assertThat(afterCustomerChange.indexOf(one.getName()) < 
+				afterCustomerChange.indexOf(two.getName()), equalTo(true));
+	}
 }
@@ -0,0 +1,98 @@
+package com.amica.billing;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link RowFormatter}. We check each row against the
+ * one that {@link Reporter#formatInvoice} or 
+ * {@link Reporter#formatOverdueInvoice} produces, for the unit-test 
+ * data set and for values that take us off of the plain path, 
+ * in the default locale and a few others.
+ * 
+ * @author Will Provost
+ */
+public class RowFormatterTest {
+
+	public static final Customer LONG_NAME = new Customer
+			("Maximilian", "Featherstonehaugh-Wainwright", Terms.CREDIT_90);
+	
+	public static final double[] AMOUNTS = { 0, -0.0, 0.05, 0.5, 1.005, 
+			999.99, 1000, -1234.5, 1234567.891, 99999999.99, 1e12, 
+			Double.NaN, Double.POSITIVE_INFINITY };
+	
+	public static final LocalDate[] DATES = { LocalDate.of(2022, 1, 8), 
+			LocalDate.of(999, 12, 31), LocalDate.of(10000, 1, 1) };
+	
+	private static Stream<Invoice> getTrickyInvoices() {
+		Stream.Builder<Invoice> invoices = Stream.builder();
+		int number = 1;
+		for (double amount : AMOUNTS) {
+			for (LocalDate date : DATES) {
+				invoices.add(new Invoice(number, GOOD_CUSTOMERS.get(0), 
+						amount, date));
+				invoices.add(new Invoice(number * 10007, LONG_NAME, 
+						amount, date, date));
+				number = -number - 1;
+			}
+		}
+		return invoices.build();
+	}
+	
+	private static void assertSameRows(Stream<Invoice> invoices) {
+		RowFormatter rows = new RowFormatter();
+		invoices.forEach(invoice -> {
+			assertThat(rows.formatInvoice(invoice), 
+					equalTo(Reporter.formatInvoice(invoice)));
+			assertThat(rows.formatOverdueInvoice(invoice), 
+					equalTo(Reporter.formatOverdueInvoice(invoice)));
+		});
+	}
+	
+	private static void assertSameRows(Locale locale) {
+		Locale original = Locale.getDefault(Locale.Category.FORMAT);
+		try {
+			Locale.setDefault(Locale.Category.FORMAT, locale);
+			assertSameRows(GOOD_INVOICES.stream());
+			assertSameRows(getTrickyInvoices());
+		} finally {
+			Locale.setDefault(Locale.Category.FORMAT, original);
+		}
+	}
+	
+	@Test
+	public void testGoodInvoices() {
+		assertSameRows(GOOD_INVOICES.stream());
+	}
+	
+	@Test
+	public void testTrickyInvoices() {
+		assertSameRows(getTrickyInvoices());
+	}
+	
+	@Test
+	public void testAppendToBuilder() {
+		StringBuilder out = new StringBuilder("> ");
+		new RowFormatter().appendInvoice(out, GOOD_INVOICES.get(1));
+		assertThat(out.toString(), 
+				equalTo("> " + Reporter.formatInvoice(GOOD_INVOICES.get(1))));
+	}
+	
+	@Test
+	public void testOtherLocales() {
+		assertSameRows(Locale.US);
+		assertSameRows(Locale.GERMANY);
+		assertSameRows(Locale.FRANCE);
+		assertSameRows(new Locale("de", "CH"));
+		assertSameRows(new Locale("hi", "IN"));
+		assertSameRows(new Locale("ar", "EG"));
+		assertSameRows(Locale.forLanguageTag("th-TH-u-nu-thai"));
+	}
+}
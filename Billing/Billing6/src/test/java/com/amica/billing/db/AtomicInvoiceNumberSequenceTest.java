@@ -0,0 +1,57 @@
+package com.amica.billing.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AtomicInvoiceNumberSequence}.
+ * 
+ * @author Will Provost
+ */
+public class AtomicInvoiceNumberSequenceTest {
+
+	private InvoiceNumberSequence sequence = new AtomicInvoiceNumberSequence(6);
+	
+	@Test
+	public void testNext() {
+		assertThat(sequence.next(), equalTo(7));
+		assertThat(sequence.next(), equalTo(8));
+	}
+	
+	@Test
+	public void testAllocateBlock() {
+		assertThat(sequence.allocateBlock(100), equalTo(7));
+		assertThat(sequence.next(), equalTo(107));
+	}
+	
+	@Test
+	public void testAllocateBlock_Empty() {
+		assertThrows(IllegalArgumentException.class, 
+				() -> sequence.allocateBlock(0));
+	}
+	
+	@Test
+	public void testObserve() {
+		sequence.observe(20);
+		sequence.observe(10);
+		assertThat(sequence.next(), equalTo(21));
+	}
+	
+	@Test
+	public void testConcurrentAllocation() {
+		List<Integer> numbers = IntStream.range(0, 10000).parallel()
+				.map(i -> sequence.next()).boxed().collect(Collectors.toList());
+		Set<Integer> distinct = Set.copyOf(numbers);
+		assertThat(distinct, hasSize(10000));
+		assertThat(distinct, everyItem(allOf
+				(greaterThanOrEqualTo(7), lessThanOrEqualTo(10006))));
+	}
+}
@@ -0,0 +1,115 @@
+package com.amica.billing.db;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.Terms;
+
+/**
+ * Unit test for the bulk saves of the {@link CachingPersistence}.
+ * We derive a persistence service that loads the test data set and
+ * records the batches that it's asked to write.
+ * 
+ * @author Will Provost
+ */
+public class CachingPersistenceTest {
+
+	public static class RecordingPersistence extends CachingPersistence {
+		
+		private List<List<?>> batches = new ArrayList<>();
+		private List<Object> singles = new ArrayList<>();
+		
+		protected Stream<Customer> readCustomers() {
+			return GOOD_CUSTOMERS.stream();
+		}
+		
+		protected Stream<Invoice> readInvoices() {
+			return GOOD_INVOICES.stream();
+		}
+		
+		protected void writeCustomer(Customer customer) {
+			singles.add(customer);
+		}
+		
+		protected void writeInvoice(Invoice invoice) {
+			singles.add(invoice);
+		}
+		
+		@Override
+		protected void writeInvoices(List<Invoice> batch) {
+			batches.add(new ArrayList<>(batch));
+		}
+	}
+	
+	private RecordingPersistence persistence;
+	
+	@BeforeEach
+	public void setUp() {
+		persistence = new RecordingPersistence();
+		persistence.load();
+	}
+	
+	private static List<Invoice> newInvoices(int count) {
+		return IntStream.rangeClosed(1, count)
+				.mapToObj(i -> new Invoice(GOOD_INVOICES.size() + i, 
+						GOOD_CUSTOMERS.get(i % GOOD_CUSTOMERS.size()), 
+						i, LocalDate.of(2022, 1, 7)))
+				.collect(Collectors.toList());
+	}
+	
+	@Test
+	public void testSaveAllInvoices_Batches() {
+		persistence.setBatchSize(4);
+		List<Invoice> invoices = newInvoices(10);
+		persistence.saveAllInvoices(invoices);
+		
+		assertThat(persistence.batches, contains(invoices.subList(0, 4),
+				invoices.subList(4, 8), invoices.subList(8, 10)));
+		assertThat(persistence.singles, empty());
+	}
+	
+	@Test
+	public void testSaveAllInvoices_UpdatesCache() {
+		persistence.setBatchSize(4);
+		persistence.saveAllInvoices(newInvoices(10));
+		
+		assertThat(persistence.getInvoices().keySet(), 
+				hasSize(GOOD_INVOICES.size() + 10));
+		assertThat(persistence.getInvoicesForCustomer
+				(GOOD_CUSTOMERS.get(0).getName()).count(), equalTo(4L));
+		assertThat(persistence.nextInvoiceNumber(), 
+				equalTo(GOOD_INVOICES.size() + 11));
+	}
+	
+	@Test
+	public void testSaveAllInvoices_Empty() {
+		persistence.saveAllInvoices(List.of());
+		assertThat(persistence.batches, empty());
+	}
+	
+	@Test
+	public void testSaveAllCustomers_OneAtATimeByDefault() {
+		persistence.setBatchSize(2);
+		List<Customer> customers = Stream.of("Four", "Five", "Six")
+				.map(last -> new Customer("Customer", last, Terms.CASH))
+				.collect(Collectors.toList());
+		persistence.saveAllCustomers(customers);
+		
+		assertThat(persistence.singles, contains(customers.toArray()));
+		assertThat(persistence.getCustomers().keySet(), 
+				hasItems("Customer Four", "Customer Five", "Customer Six"));
+	}
+}
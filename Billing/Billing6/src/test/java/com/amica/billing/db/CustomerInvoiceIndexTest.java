@@ -0,0 +1,99 @@
+package com.amica.billing.db;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.Terms;
+
+/**
+ * Unit test for the {@link CustomerInvoiceIndex}.
+ * 
+ * @author Will Provost
+ */
+public class CustomerInvoiceIndexTest {
+
+	public static final String CUSTOMER1 = GOOD_CUSTOMERS.get(0).getName();
+	public static final String CUSTOMER2 = GOOD_CUSTOMERS.get(1).getName();
+	public static final String CUSTOMER3 = GOOD_CUSTOMERS.get(2).getName();
+	
+	private CustomerInvoiceIndex index;
+	
+	@BeforeEach
+	public void setUp() {
+		index = new CustomerInvoiceIndex();
+		for (int i = GOOD_INVOICES.size() - 1; i >= 0; --i) {
+			Invoice original = GOOD_INVOICES.get(i);
+			index.put(new Invoice(original.getNumber(), original.getCustomer(),
+					original.getAmount(), original.getIssueDate(), 
+					original.getPaidDate()));
+		}
+	}
+	
+	@Test
+	public void testGetInvoices() {
+		assertThat(index.getInvoices(CUSTOMER1), hasNumbers(1));
+		assertThat(index.getInvoices(CUSTOMER2), hasNumbers(2, 3, 4));
+		assertThat(index.getInvoices(CUSTOMER3), hasNumbers(5, 6));
+	}
+	
+	@Test
+	public void testGetInvoices_NoSuchCustomer() {
+		assertThat(index.getInvoices("Customer Five"), hasNumbers());
+	}
+	
+	@Test
+	public void testGetVolume() {
+		assertThat(index.getVolume(CUSTOMER1), closeTo(100.0, .0001));
+		assertThat(index.getVolume(CUSTOMER2), closeTo(900.0, .0001));
+		assertThat(index.getVolume(CUSTOMER3), closeTo(1100.0, .0001));
+		assertThat(index.getVolume("Customer Five"), closeTo(0.0, .0001));
+	}
+	
+	@Test
+	public void testPut_New() {
+		index.put(new Invoice(7, GOOD_CUSTOMERS.get(0), 50, LocalDate.now()));
+		assertThat(index.getInvoices(CUSTOMER1), hasNumbers(1, 7));
+		assertThat(index.getVolume(CUSTOMER1), closeTo(150.0, .0001));
+	}
+	
+	@Test
+	public void testPut_ModifiedInPlace() {
+		Invoice invoice = index.getInvoices(CUSTOMER2).findFirst().get();
+		invoice.setAmount(250);
+		index.put(invoice);
+		assertThat(index.getInvoices(CUSTOMER2), hasNumbers(2, 3, 4));
+		assertThat(index.getVolume(CUSTOMER2), closeTo(950.0, .0001));
+	}
+	
+	@Test
+	public void testPut_ChangedCustomer() {
+		index.put(new Invoice(3, GOOD_CUSTOMERS.get(0), 300, LocalDate.now()));
+		assertThat(index.getInvoices(CUSTOMER1), hasNumbers(1, 3));
+		assertThat(index.getInvoices(CUSTOMER2), hasNumbers(2, 4));
+		assertThat(index.getVolume(CUSTOMER1), closeTo(400.0, .0001));
+		assertThat(index.getVolume(CUSTOMER2), closeTo(600.0, .0001));
+	}
+	
+	@Test
+	public void testPut_MovedAway_NoDrift() {
+		Customer customer = new Customer("Customer", "Five", Terms.CASH);
+		double[] amounts = { 0.1, 0.7, 0.2 };
+		for (int i = 0; i < amounts.length; ++i) {
+			index.put(new Invoice(7 + i, customer, amounts[i], LocalDate.now()));
+		}
+		for (int i = 0; i < amounts.length; ++i) {
+			index.put(new Invoice(7 + i, GOOD_CUSTOMERS.get(0), 
+					amounts[i], LocalDate.now()));
+		}
+		assertThat(index.getVolume("Customer Five"), equalTo(0.0));
+		assertThat(index.getInvoices("Customer Five"), hasNumbers());
+	}
+}
@@ -0,0 +1,122 @@
+package com.amica.billing.db;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Invoice;
+import com.amica.billing.parse.CSVParser;
+
+/**
+ * Unit test for the {@link Export} component. We mock the repositories
+ * to stream the test data set, and check the files that we export,
+ * whole or in partitions.
+ * 
+ * @author Will Provost
+ */
+public class ExportTest {
+
+	public static final String CUSTOMERS_FILE = TEMP_FOLDER + "/export/customers.csv";
+	public static final String INVOICES_FILE = TEMP_FOLDER + "/export/invoices.csv";
+	
+	private CustomerRepository customers = mock(CustomerRepository.class);
+	private InvoiceRepository invoices = mock(InvoiceRepository.class);
+	private AtomicInteger openStreams = new AtomicInteger();
+	private Export export;
+	
+	private <T> Stream<T> track(Stream<T> stream) {
+		openStreams.incrementAndGet();
+		return stream.onClose(openStreams::decrementAndGet);
+	}
+	
+	@BeforeEach
+	public void setUp() throws IOException {
+		when(customers.streamAllBy())
+			.thenAnswer(inv -> track(GOOD_CUSTOMERS.stream()));
+		when(invoices.streamAllBy())
+			.thenAnswer(inv -> track(GOOD_INVOICES.stream()));
+		when(invoices.findFirstByOrderByNumberAsc())
+			.thenReturn(Optional.of(GOOD_INVOICES.get(0)));
+		when(invoices.findFirstByOrderByNumberDesc())
+			.thenReturn(Optional.of(GOOD_INVOICES.get(GOOD_INVOICES.size() - 1)));
+		when(invoices.streamByNumberRange(anyInt(), anyInt())).thenAnswer(inv -> {
+			int from = inv.getArgument(0);
+			int to = inv.getArgument(1);
+			return track(GOOD_INVOICES.stream()
+				.filter(i -> i.getNumber() >= from && i.getNumber() < to));
+		});
+		
+		export = new Export();
+		export.setCustomers(customers);
+		export.setInvoices(invoices);
+		export.setCustomersFile(CUSTOMERS_FILE);
+		export.setInvoicesFile(INVOICES_FILE);
+	}
+	
+	private static List<String> lines(List<Invoice> invoices) {
+		return new CSVParser().produceInvoices(invoices.stream())
+				.collect(Collectors.toList());
+	}
+	
+	@Test
+	public void testExport() throws IOException {
+		export.export();
+		assertThat(Files.readAllLines(Paths.get(CUSTOMERS_FILE)),
+			equalTo(new CSVParser().produceCustomers(GOOD_CUSTOMERS.stream())
+				.collect(Collectors.toList())));
+		assertThat(Files.readAllLines(Paths.get(INVOICES_FILE)),
+			equalTo(lines(GOOD_INVOICES)));
+		assertThat(openStreams.get(), equalTo(0));
+	}
+	
+	@Test
+	public void testExport_Partitions() throws IOException {
+		export.setPartitions(4);
+		export.export();
+		
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, "export", "invoices_1.csv")),
+			equalTo(lines(GOOD_INVOICES.subList(0, 2))));
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, "export", "invoices_2.csv")),
+			equalTo(lines(GOOD_INVOICES.subList(2, 4))));
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, "export", "invoices_3.csv")),
+			equalTo(lines(GOOD_INVOICES.subList(4, 6))));
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, "export", "invoices_4.csv")),
+			empty());
+		assertThat(openStreams.get(), equalTo(0));
+	}
+	
+	@Test
+	public void testExport_Partitions_NoInvoices() throws IOException {
+		when(invoices.findFirstByOrderByNumberAsc()).thenReturn(Optional.empty());
+		when(invoices.findFirstByOrderByNumberDesc()).thenReturn(Optional.empty());
+		export.setPartitions(2);
+		export.export();
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, "export", "invoices_1.csv")),
+			empty());
+	}
+	
+	@Test
+	public void testGetPartitionFilename() {
+		assertThat(Export.getPartitionFilename("invoices.csv", 3), 
+				equalTo("invoices_3.csv"));
+		assertThat(Export.getPartitionFilename("data/invoices.flat", 1), 
+				equalTo(Paths.get("data", "invoices_1.flat").toString()));
+		assertThat(Export.getPartitionFilename("invoices", 2), 
+				equalTo("invoices_2"));
+	}
+}
@@ -0,0 +1,156 @@
+package com.amica.billing.db;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.parse.ParserPersistenceTest;
+
+/**
+ * Unit test for the {@link StreamingMigration}. We migrate the test data
+ * set to a target that records what it's given, and that can be made
+ * to fail partway through, and check that a second run picks up
+ * where the first one left off.
+ * 
+ * @author Will Provost
+ */
+public class StreamingMigrationTest {
+
+	public static final int BATCH_SIZE = 2;
+	
+	public static class RecordingTarget implements BatchWriter {
+		
+		private Map<String,Customer> customers = new LinkedHashMap<>();
+		private Map<Integer,Invoice> invoices = new LinkedHashMap<>();
+		private List<Integer> batchSizes = new ArrayList<>();
+		private int failOnBatch = -1;
+		
+		public void writeCustomers(List<Customer> batch) {
+			batch.forEach(customer -> customers.put(customer.getName(), customer));
+		}
+		
+		public void writeInvoices(List<Invoice> batch) {
+			if (batchSizes.size() == failOnBatch) {
+				throw new IllegalStateException("Target is down.");
+			}
+			batch.forEach(invoice -> invoices.put(invoice.getNumber(), invoice));
+			batchSizes.add(batch.size());
+		}
+	}
+	
+	public static class MemoryCheckpoint implements MigrationCheckpoint {
+		
+		private Integer lastInvoiceNumber;
+		private List<Integer> commits = new ArrayList<>();
+		
+		public OptionalInt getLastInvoiceNumber() {
+			return lastInvoiceNumber != null 
+				? OptionalInt.of(lastInvoiceNumber) : OptionalInt.empty();
+		}
+		
+		public void commit(int lastInvoiceNumber) {
+			this.lastInvoiceNumber = lastInvoiceNumber;
+			commits.add(lastInvoiceNumber);
+		}
+		
+		public void clear() {
+			lastInvoiceNumber = null;
+		}
+	}
+	
+	private RecordingTarget target = new RecordingTarget();
+	private MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+	private StreamingMigration migration;
+	
+	@BeforeEach
+	public void setUp() throws IOException {
+		Files.createDirectories(Paths.get(TEMP_FOLDER));
+		Files.copy(Paths.get(ParserPersistenceTest.SOURCE_FOLDER, CUSTOMERS_FILENAME), 
+				Paths.get(TEMP_FOLDER, CUSTOMERS_FILENAME),
+				StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(Paths.get(ParserPersistenceTest.SOURCE_FOLDER, INVOICES_FILENAME), 
+				Paths.get(TEMP_FOLDER, INVOICES_FILENAME),
+				StandardCopyOption.REPLACE_EXISTING);
+		
+		migration = new StreamingMigration();
+		migration.setCustomersFile(TEMP_FOLDER + "/" + CUSTOMERS_FILENAME);
+		migration.setInvoicesFile(TEMP_FOLDER + "/" + INVOICES_FILENAME);
+		migration.setBatchSize(BATCH_SIZE);
+		migration.setQueuedBatches(1);
+		migration.setTarget(target);
+		migration.setCheckpoint(checkpoint);
+	}
+	
+	private void assertAllMigrated() {
+		assertThat(target.customers.keySet(), 
+				equalTo(GOOD_CUSTOMERS_MAP.keySet()));
+		assertThat(target.invoices.keySet(), 
+				equalTo(GOOD_INVOICES_MAP.keySet()));
+		for (int number : target.invoices.keySet()) {
+			assertThat(target.invoices.get(number), 
+					samePropertyValuesAs(GOOD_INVOICES_MAP.get(number)));
+		}
+	}
+	
+	@Test
+	public void testMigrate() {
+		StreamingMigration.Progress progress = migration.migrate();
+		assertAllMigrated();
+		assertThat(target.batchSizes, contains(2, 2, 2));
+		assertThat(checkpoint.commits, contains(2, 4, 6));
+		assertThat(checkpoint.getLastInvoiceNumber().isPresent(), equalTo(false));
+		
+		assertThat(progress.getCustomers(), equalTo((long) GOOD_CUSTOMERS.size()));
+		assertThat(progress.getInvoices(), equalTo((long) GOOD_INVOICES.size()));
+		assertThat(progress.getSkipped(), equalTo(0L));
+	}
+	
+	@Test
+	public void testMigrate_Resume() {
+		target.failOnBatch = 1;
+		assertThrows(IllegalStateException.class, migration::migrate);
+		assertThat(target.invoices.keySet(), contains(1, 2));
+		assertThat(checkpoint.getLastInvoiceNumber().getAsInt(), equalTo(2));
+		
+		target.failOnBatch = -1;
+		StreamingMigration.Progress progress = migration.migrate();
+		assertAllMigrated();
+		assertThat(target.batchSizes, contains(2, 2, 2));
+		assertThat(progress.getSkipped(), equalTo(2L));
+		assertThat(progress.getInvoices(), equalTo(4L));
+		assertThat(checkpoint.getLastInvoiceNumber().isPresent(), equalTo(false));
+	}
+	
+	@Test
+	public void testMigrate_CheckpointNotFound() {
+		checkpoint.commit(99);
+		StreamingMigration.Progress progress = migration.migrate();
+		assertThat(target.invoices.keySet(), empty());
+		assertThat(progress.getSkipped(), equalTo((long) GOOD_INVOICES.size()));
+	}
+	
+	@Test
+	public void testMigrate_MissingFile() throws IOException {
+		Files.delete(Paths.get(TEMP_FOLDER, INVOICES_FILENAME));
+		assertThrows(RuntimeException.class, migration::migrate);
+		assertThat(target.customers.keySet(), 
+				equalTo(GOOD_CUSTOMERS_MAP.keySet()));
+		assertThat(target.invoices.keySet(), empty());
+	}
+}
@@ -0,0 +1,115 @@
+package com.amica.billing.db.mongo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.db.CustomerRepository;
+import com.amica.billing.db.InvoiceRepository;
+import com.amica.billing.db.Migration;
+
+/**
+ * Integration test for the bulk saves of the {@link MongoPersistence}.
+ * We migrate the test data set to the test database, and then save
+ * new and changed invoices in small batches, checking the results
+ * both in the repositories and by reloading.
+ * 
+ * @author Will Provost
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes=MongoPersistenceIntegrationTest.Config.class)
+public class MongoPersistenceIntegrationTest {
+
+	public static final int NEW_INVOICES = 250;
+	public static final int BATCH_SIZE = 100;
+	
+	@ComponentScan(basePackages="com.amica.billing")
+	@EnableAutoConfiguration
+	@EnableMongoRepositories(basePackages="com.amica.billing.db")
+	@PropertySource(value={
+			"classpath:test.properties", 
+			"classpath:migration.properties"
+		})
+	public static class Config {
+	}
+	
+	@Autowired
+	private Migration migration;
+	
+	@Autowired
+	private MongoPersistence persistence;
+	
+	@Autowired
+	private CustomerRepository customers;
+	
+	@Autowired
+	private InvoiceRepository invoices;
+	
+	private long originalCount;
+	private Customer customer;
+	
+	@BeforeEach
+	public void setUp() {
+		migration.migrate();
+		persistence.setBatchSize(BATCH_SIZE);
+		originalCount = invoices.count();
+		customer = persistence.getCustomers().values().iterator().next();
+	}
+	
+	private List<Invoice> newInvoices(double amount) {
+		int first = persistence.allocateInvoiceNumbers(NEW_INVOICES);
+		return IntStream.range(first, first + NEW_INVOICES)
+				.mapToObj(number -> new Invoice(number, customer, amount, 
+						LocalDate.of(2022, 1, 7)))
+				.collect(Collectors.toList());
+	}
+	
+	@Test
+	public void testSaveAllInvoices() {
+		List<Invoice> saved = newInvoices(100);
+		persistence.saveAllInvoices(saved);
+		assertThat(invoices.count(), equalTo(originalCount + NEW_INVOICES));
+		
+		persistence.load();
+		Invoice reloaded = persistence.getInvoices().get(saved.get(0).getNumber());
+		assertThat(reloaded.getAmount(), closeTo(100, .0001));
+		assertThat(reloaded.getCustomer().getName(), equalTo(customer.getName()));
+	}
+	
+	@Test
+	public void testSaveAllInvoices_Replaces() {
+		List<Invoice> saved = newInvoices(100);
+		persistence.saveAllInvoices(saved);
+		saved.forEach(invoice -> invoice.setAmount(200));
+		persistence.saveAllInvoices(saved);
+		assertThat(invoices.count(), equalTo(originalCount + NEW_INVOICES));
+		
+		persistence.load();
+		assertThat(persistence.getInvoices().get(saved.get(NEW_INVOICES - 1)
+				.getNumber()).getAmount(), closeTo(200, .0001));
+	}
+	
+	@Test
+	public void testSaveAllCustomers() {
+		long customerCount = customers.count();
+		persistence.saveAllCustomers(persistence.getCustomers().values());
+		assertThat(customers.count(), equalTo(customerCount));
+	}
+}
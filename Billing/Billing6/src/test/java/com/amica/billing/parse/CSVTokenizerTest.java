@@ -0,0 +1,75 @@
+package com.amica.billing.parse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link CSVTokenizer}.
+ * 
+ * @author Will Provost
+ */
+public class CSVTokenizerTest {
+
+	private void assertSplitsLike(String line) {
+		assertThat(line, CSVTokenizer.split(line), equalTo(line.split(",")));
+	}
+	
+	@Test
+	public void testSplit_Unquoted() {
+		assertSplitsLike("1,Customer,One,100,2022-01-04");
+		assertSplitsLike("1,,One");
+		assertSplitsLike("1,Customer,One,");
+		assertSplitsLike(",,,,");
+		assertSplitsLike(",One");
+		assertSplitsLike("");
+	}
+	
+	@Test
+	public void testSplit_Quoted() {
+		assertThat(CSVTokenizer.split("1,\"Customer\",\"One\",100"), 
+				arrayContaining("1", "Customer", "One", "100"));
+		assertThat(CSVTokenizer.split("\"Smith, Jr.\",\"O\"\"Brien\",CASH"), 
+				arrayContaining("Smith, Jr.", "O\"Brien", "CASH"));
+		assertThat(CSVTokenizer.split("\"\"\"\",\"a,\"\"b\"\",c\""), 
+				arrayContaining("\"", "a,\"b\",c"));
+	}
+	
+	@Test
+	public void testSplit_EmptyQuoted() {
+		assertThat(CSVTokenizer.split("1,\"\",\"\""), 
+				arrayContaining("1", "", ""));
+		assertThat(CSVTokenizer.split("1,\"\","), 
+				arrayContaining("1", ""));
+	}
+	
+	@Test
+	public void testSplit_Malformed() {
+		assertThat(CSVTokenizer.split("1,\"Customer,One"), 
+				arrayContaining("1", "Customer,One"));
+		assertThat(CSVTokenizer.split("1,\"Customer\"One,2"), 
+				arrayContaining("1", "CustomerOne", "2"));
+		assertThat(CSVTokenizer.split("1,Cust\"omer"), 
+				arrayContaining("1", "Cust\"omer"));
+	}
+	
+	@Test
+	public void testLine() {
+		assertThat(new CSVTokenizer.Line().field(1).field("One", false)
+				.field("Two", true).toString(), equalTo("1,One,\"Two\""));
+		assertThat(new CSVTokenizer.Line().field("Smith, Jr.", false)
+				.field("O\"Brien", false).field("", false).toString(), 
+				equalTo("\"Smith, Jr.\",\"O\"\"Brien\","));
+	}
+	
+	@Test
+	public void testRoundTrip() {
+		String[] fields = { "\"", "a,\"b\",c", "", "plain", "\"\"" };
+		CSVTokenizer.Line line = new CSVTokenizer.Line();
+		for (String field : fields) {
+			line.field(field, false);
+		}
+		assertThat(CSVTokenizer.split(line.toString()), arrayContaining(fields));
+	}
+}
@@ -0,0 +1,81 @@
+package com.amica.billing.parse;
+
+import static com.amica.billing.TestUtility.TEMP_FOLDER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link DurableFile} class.
+ * 
+ * @author Will Provost
+ */
+public class DurableFileTest {
+
+	public static final Path FOLDER = Paths.get(TEMP_FOLDER, "durable");
+	public static final Path PATH = FOLDER.resolve("data.txt");
+	
+	private DurableFile file;
+	
+	@BeforeEach
+	public void setUp() throws IOException {
+		Files.createDirectories(FOLDER);
+		try ( Stream<Path> leftovers = Files.list(FOLDER); ) {
+			for (Path path : (Iterable<Path>) leftovers::iterator) {
+				Files.delete(path);
+			}
+		}
+		Files.write(PATH, List.of("one", "two"));
+		file = new DurableFile(PATH);
+	}
+	
+	@Test
+	public void testReplace() throws IOException {
+		file.replace(Stream.of("three", "four", "five"));
+		assertThat(Files.readAllLines(PATH), contains("three", "four", "five"));
+		try ( Stream<Path> files = Files.list(FOLDER); ) {
+			assertThat(files.count(), equalTo(1L));
+		}
+	}
+	
+	@Test
+	public void testReplace_KeepsPermissions() throws IOException {
+		Set<PosixFilePermission> permissions = 
+				PosixFilePermissions.fromString("rw-r--r--");
+		Files.setPosixFilePermissions(PATH, permissions);
+		file.replace(Stream.of("three"));
+		assertThat(Files.getPosixFilePermissions(PATH), equalTo(permissions));
+	}
+	
+	@Test
+	public void testReplace_NewFile() throws IOException {
+		Files.delete(PATH);
+		file.replace(Stream.of("three"));
+		assertThat(Files.readAllLines(PATH), contains("three"));
+	}
+	
+	@Test
+	public void testReplace_FailsPartway() throws IOException {
+		Stream<String> failing = Stream.of("three", null, "five")
+				.map(line -> line.toUpperCase());
+		assertThrows(NullPointerException.class, () -> file.replace(failing));
+		
+		assertThat(Files.readAllLines(PATH), contains("one", "two"));
+		try ( Stream<Path> files = Files.list(FOLDER); ) {
+			assertThat(files.count(), equalTo(1L));
+		}
+	}
+}
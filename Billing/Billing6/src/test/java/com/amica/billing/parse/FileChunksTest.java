@@ -0,0 +1,76 @@
+package com.amica.billing.parse;
+
+import static com.amica.billing.TestUtility.TEMP_FOLDER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.parse.FileChunks.Chunk;
+
+/**
+ * Unit test for the {@link FileChunks} class. We write files with each
+ * kind of line ending, split them into chunks of various sizes, and 
+ * check that the chunks' lines, taken in order, are the file's lines.
+ * 
+ * @author Will Provost
+ */
+public class FileChunksTest {
+
+	public static final Path PATH = Paths.get(TEMP_FOLDER, "chunks.txt");
+	
+	public static final List<String> LINES = IntStream.range(0, 200)
+			.mapToObj(i -> i % 17 == 0 ? "" : "Line " + i + "x".repeat(i % 13))
+			.collect(Collectors.toList());
+	
+	private void assertChunksHaveAllLines(String content) throws IOException {
+		Files.createDirectories(PATH.getParent());
+		Files.write(PATH, content.getBytes(StandardCharsets.UTF_8));
+		List<String> expected = content.lines().collect(Collectors.toList());
+		
+		FileChunks chunks = new FileChunks(PATH);
+		for (int chunkSize : new int[] { 1, 2, 7, 64, 1000, 1000000 }) {
+			List<Chunk> split = chunks.split(chunkSize);
+			assertThat(split.get(0).getStart(), equalTo(0L));
+			assertThat(split.get(split.size() - 1).getEnd(), equalTo(Files.size(PATH)));
+			for (int i = 1; i < split.size(); ++i) {
+				assertThat(split.get(i).getStart(), equalTo(split.get(i - 1).getEnd()));
+			}
+			assertThat("Chunk size " + chunkSize, split.stream()
+					.flatMap(chunks::lines).collect(Collectors.toList()), 
+				equalTo(expected));
+		}
+	}
+	
+	@Test
+	public void testSplit_LF() throws IOException {
+		assertChunksHaveAllLines(String.join("\n", LINES) + "\n");
+	}
+	
+	@Test
+	public void testSplit_CRLF() throws IOException {
+		assertChunksHaveAllLines(String.join("\r\n", LINES) + "\r\n");
+	}
+	
+	@Test
+	public void testSplit_CR() throws IOException {
+		assertChunksHaveAllLines(String.join("\r", LINES));
+	}
+	
+	@Test
+	public void testSplit_Empty() throws IOException {
+		Files.createDirectories(PATH.getParent());
+		Files.write(PATH, new byte[0]);
+		assertThat(new FileChunks(PATH).split(10), empty());
+	}
+}
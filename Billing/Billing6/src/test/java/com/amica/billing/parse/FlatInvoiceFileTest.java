@@ -0,0 +1,149 @@
+package com.amica.billing.parse;
+
+import static com.amica.billing.TestUtility.*;
+import static com.amica.billing.parse.FlatParserTest.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Invoice;
+
+/**
+ * Unit test for the {@link FlatInvoiceFile}. We write files of flat
+ * invoice records with each kind of line ending, and check that reading
+ * them as fixed-length records gives the same results as the 
+ * {@link FlatParser} does for the same lines, whether read in order
+ * or one record at a time.
+ * 
+ * @author Will Provost
+ */
+public class FlatInvoiceFileTest {
+
+	public static final Path INVOICES_PATH = Paths.get(TEMP_FOLDER, "invoices.flat");
+	
+	/**
+	 * The bad data set, with the short line padded out to full length.
+	 */
+	public static final List<String> PADDED_INVOICE_DATA = BAD_INVOICE_DATA.stream()
+			.map(line -> String.format("%-" + FlatParser.INVOICE_LENGTH + "s", line))
+			.collect(Collectors.toList());
+	
+	private void writeFile(List<String> lines, String separator, boolean last) 
+			throws IOException {
+		Files.createDirectories(INVOICES_PATH.getParent());
+		Files.write(INVOICES_PATH, (String.join(separator, lines) + 
+				(last ? separator : "")).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private List<Invoice> readFile() throws IOException {
+		try ( FlatInvoiceFile file = 
+				new FlatInvoiceFile(INVOICES_PATH, GOOD_CUSTOMERS_MAP); ) {
+			assertThat(file.isFixedLength(), equalTo(true));
+			return file.stream().collect(Collectors.toList());
+		}
+	}
+	
+	private void assertSameAsFlatParser(List<String> lines) throws IOException {
+		List<Invoice> expected = new FlatParser()
+				.parseInvoices(lines.stream(), GOOD_CUSTOMERS_MAP)
+				.collect(Collectors.toList());
+		for (String separator : new String[] { "\n", "\r\n", "\r" }) {
+			for (boolean last : new boolean[] { false, true }) {
+				writeFile(lines, separator, last);
+				assertThat(readFile(), sameAsList(expected));
+			}
+		}
+	}
+	
+	@Test
+	public void testStream() throws IOException {
+		assertSameAsFlatParser(GOOD_INVOICE_DATA);
+	}
+	
+	@Test
+	public void testStream_Bad() throws IOException {
+		assertSameAsFlatParser(PADDED_INVOICE_DATA);
+	}
+	
+	@Test
+	public void testStream_Empty() throws IOException {
+		writeFile(List.of(), "\n", false);
+		assertThat(readFile(), empty());
+	}
+	
+	@Test
+	public void testGetInvoice() throws IOException {
+		writeFile(GOOD_INVOICE_DATA, "\r\n", true);
+		try ( FlatInvoiceFile file = 
+				new FlatInvoiceFile(INVOICES_PATH, GOOD_CUSTOMERS_MAP); ) {
+			assertThat(file.getRecordLength(), equalTo(FlatParser.INVOICE_LENGTH + 2));
+			assertThat(file.getRecordCount(), equalTo((long) GOOD_INVOICES.size()));
+			for (int index : new int[] { 4, 0, 5, 2 }) {
+				assertThat(file.getInvoice(index), 
+						samePropertyValuesAs(GOOD_INVOICES.get(index)));
+			}
+			assertThrows(IndexOutOfBoundsException.class, 
+					() -> file.getInvoice(GOOD_INVOICES.size()));
+		}
+	}
+	
+	@Test
+	public void testGetInvoice_Bad() throws IOException {
+		writeFile(PADDED_INVOICE_DATA, "\n", false);
+		try ( FlatInvoiceFile file = 
+				new FlatInvoiceFile(INVOICES_PATH, GOOD_CUSTOMERS_MAP); ) {
+			assertThat(file.getInvoice(2), nullValue());
+			assertThat(file.getInvoice(4), nullValue());
+			assertThat(file.getInvoice(5), 
+					samePropertyValuesAs(BAD_INVOICES.get(2)));
+		}
+	}
+	
+	@Test
+	public void testVariableLength() throws IOException {
+		List<String> lines = Stream.concat(GOOD_INVOICE_DATA.stream(),
+				BAD_INVOICE_DATA.stream()).collect(Collectors.toList());
+		writeFile(lines, "\n", true);
+		assertThrows(IllegalArgumentException.class, 
+				() -> new FlatInvoiceFile(INVOICES_PATH, GOOD_CUSTOMERS_MAP));
+		
+		writeFile(List.of(GOOD_INVOICE_DATA.get(0), 
+				GOOD_INVOICE_DATA.get(1).substring(1), GOOD_INVOICE_DATA.get(2) + " "), 
+				"\n", true);
+		try ( FlatInvoiceFile file = 
+				new FlatInvoiceFile(INVOICES_PATH, GOOD_CUSTOMERS_MAP); ) {
+			assertThat(file.isFixedLength(), equalTo(false));
+			assertThat(file.getInvoice(0), samePropertyValuesAs(GOOD_INVOICES.get(0)));
+			assertThrows(IllegalStateException.class, () -> file.getInvoice(1));
+		}
+	}
+	
+	@Test
+	public void testParserFallsBack() throws IOException {
+		List<Invoice> expected = new FlatParser()
+				.parseInvoices(BAD_INVOICE_DATA.stream(), GOOD_CUSTOMERS_MAP)
+				.collect(Collectors.toList());
+		writeFile(BAD_INVOICE_DATA, "\n", true);
+		try ( Stream<Invoice> invoices = new FlatParser()
+				.parseInvoices(INVOICES_PATH, GOOD_CUSTOMERS_MAP); ) {
+			assertThat(invoices.collect(Collectors.toList()), sameAsList(expected));
+		}
+		
+		writeFile(GOOD_INVOICE_DATA, "\n", true);
+		try ( Stream<Invoice> invoices = new FlatParser()
+				.parseInvoices(INVOICES_PATH, GOOD_CUSTOMERS_MAP); ) {
+			assertThat(invoices.collect(Collectors.toList()), sameAsList(GOOD_INVOICES));
+		}
+	}
+}
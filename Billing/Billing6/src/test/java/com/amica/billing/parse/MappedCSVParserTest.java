@@ -0,0 +1,110 @@
+package com.amica.billing.parse;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Invoice;
+
+/**
+ * Unit test for the {@link MappedCSVParser}. We run the {@link CSVParserTest}
+ * cases, and then write files of good, bad, and unusual lines, and check
+ * that reading them through the mapped file gives the same results as 
+ * the {@link CSVParser} does for the same lines.
+ * 
+ * @author Will Provost
+ */
+public class MappedCSVParserTest extends CSVParserTest {
+
+	public static final Path INVOICES_PATH = Paths.get(TEMP_FOLDER, "mapped.csv");
+	
+	public static final List<String> TRICKY_INVOICE_DATA = Stream.of
+			("",
+			 "7,Customer,One,1234.56,2022-02-30",
+			 "8,Customer,Two,-0.5,2020-02-29,2022-04-31",
+			 "9,Customer,Three,1e3,2022-01-04",
+			 "+10,Customer,One,.25,2022-01-04,",
+			 "11,Customer,One,12345678901234567.89,2022-01-04",
+			 "12,Customer,One,100,2022-01-04,,2022-01-05",
+			 "13,Customer,One,100,2022-02-32",
+			 "14,Customer,One,100,0000-01-01",
+			 "15,Customer,One,10 0,2022-01-04",
+			 "16,Customer,One,100,2022-01-04,2022-01-05,extra",
+			 "12345678901,Customer,One,100,2022-01-04",
+			 "17,Customer One,100,2022-01-04",
+			 ",,,,",
+			 "18,Customer,One,100,2022-01-04",
+			 "19,\"Customer\",\"One\",100,2022-01-04",
+			 "20,\"Customer\",\"O\"\"ne\",100,2022-01-04",
+			 "21,\"Customer,One\",100,2022-01-04").toList();
+	
+	private MappedCSVParser mappedParser;
+	
+	@BeforeEach
+	@Override
+	public void setUp() {
+		parser = mappedParser = new MappedCSVParser();
+	}
+	
+	private void writeFile(List<String> lines, String separator) throws IOException {
+		Files.createDirectories(INVOICES_PATH.getParent());
+		Files.write(INVOICES_PATH, String.join(separator, lines)
+				.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private List<Invoice> parseFile(MappedCSVParser parser) throws IOException {
+		try ( Stream<Invoice> invoices = 
+				parser.parseInvoices(INVOICES_PATH, GOOD_CUSTOMERS_MAP); ) {
+			return invoices.collect(Collectors.toList());
+		}
+	}
+	
+	private void assertSameAsCSVParser(List<String> lines) throws IOException {
+		List<Invoice> expected = new CSVParser()
+				.parseInvoices(lines.stream(), GOOD_CUSTOMERS_MAP)
+				.collect(Collectors.toList());
+		for (String separator : new String[] { "\n", "\r\n", "\r" }) {
+			for (String last : new String[] { "", separator }) {
+				writeFile(lines, separator);
+				Files.write(INVOICES_PATH, last.getBytes(), 
+						StandardOpenOption.APPEND);
+				assertThat(parseFile(mappedParser), sameAsList(expected));
+				assertThat(parseFile(new MappedCSVParser(64)), sameAsList(expected));
+			}
+		}
+	}
+	
+	@Test
+	public void testParseInvoiceFile() throws IOException {
+		assertSameAsCSVParser(GOOD_INVOICE_DATA);
+	}
+	
+	@Test
+	public void testParseInvoiceFile_Bad() throws IOException {
+		assertSameAsCSVParser(BAD_INVOICE_DATA);
+	}
+	
+	@Test
+	public void testParseInvoiceFile_Tricky() throws IOException {
+		assertSameAsCSVParser(TRICKY_INVOICE_DATA);
+	}
+	
+	@Test
+	public void testParseInvoiceFile_Empty() throws IOException {
+		writeFile(List.of(), "\n");
+		assertThat(parseFile(mappedParser), empty());
+	}
+}
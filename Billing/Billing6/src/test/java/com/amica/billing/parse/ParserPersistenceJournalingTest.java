@@ -0,0 +1,144 @@
+package com.amica.billing.parse;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.Terms;
+
+/**
+ * Unit test for the journaling mode of the {@link ParserPersistence} class.
+ * We save through one instance and then load a fresh instance from the
+ * same files, to see that the journal is replayed and compacted correctly.
+ * 
+ * @author Will Provost
+ */
+public class ParserPersistenceJournalingTest {
+
+	public static final String SOURCE_FOLDER = "src/test/resources/data";
+	
+	public static final Path CUSTOMERS_PATH = Paths.get(TEMP_FOLDER, CUSTOMERS_FILENAME);
+	public static final Path INVOICES_PATH = Paths.get(TEMP_FOLDER, INVOICES_FILENAME);
+	public static final Path INVOICES_JOURNAL_PATH = 
+			Paths.get(INVOICES_PATH + RecordJournal.JOURNAL_SUFFIX);
+
+	private ParserPersistence persistence;
+	
+	private static ParserPersistence createPersistence(int compactionThreshold) {
+		ParserPersistence persistence = new ParserPersistence();
+		persistence.setCustomersFile(CUSTOMERS_PATH.toString());
+		persistence.setInvoicesFile(INVOICES_PATH.toString());
+		persistence.setJournaling(true);
+		persistence.setCompactionThreshold(compactionThreshold);
+		persistence.load();
+		return persistence;
+	}
+	
+	@BeforeEach
+	public void setUp() throws IOException {
+		Files.createDirectories(Paths.get(TEMP_FOLDER));
+		Files.copy(Paths.get(SOURCE_FOLDER, CUSTOMERS_FILENAME), CUSTOMERS_PATH,
+				StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(Paths.get(SOURCE_FOLDER, INVOICES_FILENAME), INVOICES_PATH,
+				StandardCopyOption.REPLACE_EXISTING);
+		for (Path path : new Path[] { CUSTOMERS_PATH, INVOICES_PATH }) {
+			Files.deleteIfExists(Paths.get(path + RecordJournal.JOURNAL_SUFFIX));
+			Files.deleteIfExists(Paths.get(path + RecordJournal.COMPACTING_SUFFIX));
+		}
+		
+		persistence = createPersistence(1000);
+	}
+	
+	@AfterEach
+	public void tearDown() {
+		persistence.close();
+	}
+	
+	@Test
+	public void testSaveInvoice_AppendsToJournal() throws IOException {
+		List<String> before = Files.readAllLines(INVOICES_PATH);
+		persistence.saveInvoice(new Invoice
+				(7, GOOD_CUSTOMERS.get(0), 999, LocalDate.of(2022, 1, 7)));
+		
+		assertThat(Files.readAllLines(INVOICES_PATH), equalTo(before));
+		assertThat(Files.readAllLines(INVOICES_JOURNAL_PATH), 
+				contains("7,Customer,One,999.00,2022-01-07"));
+	}
+	
+	@Test
+	public void testSaveInvoice_JournalFailure() throws IOException {
+		Files.createDirectory(INVOICES_JOURNAL_PATH);
+		try {
+			assertThrows(UncheckedIOException.class, () -> persistence.saveInvoice
+					(new Invoice(7, GOOD_CUSTOMERS.get(0), 999, LocalDate.of(2022, 1, 7))));
+		} finally {
+			Files.delete(INVOICES_JOURNAL_PATH);
+		}
+	}
+	
+	@Test
+	public void testLoad_ReplaysJournal() {
+		persistence.saveCustomer(new Customer("Customer", "Four", Terms.CASH));
+		Customer customer = persistence.getCustomers().get("Customer Four");
+		Invoice invoice = new Invoice(7, customer, 999, LocalDate.of(2022, 1, 7));
+		persistence.saveInvoice(invoice);
+		invoice.setPaidDate(Optional.of(LocalDate.of(2022, 1, 8)));
+		persistence.saveInvoice(invoice);
+		persistence.close();
+		
+		ParserPersistence reloaded = createPersistence(1000);
+		assertThat(reloaded.getCustomers().keySet(), hasItem("Customer Four"));
+		assertThat(reloaded.getInvoices().keySet(), hasSize(GOOD_INVOICES.size() + 1));
+		assertThat(reloaded.getInvoices().get(7).getPaidDate(), 
+				equalTo(Optional.of(LocalDate.of(2022, 1, 8))));
+		reloaded.close();
+	}
+	
+	@Test
+	public void testCompact() throws IOException {
+		persistence.saveInvoice(new Invoice
+				(7, GOOD_CUSTOMERS.get(0), 999, LocalDate.of(2022, 1, 7)));
+		persistence.compact();
+		
+		assertThat(Files.exists(INVOICES_JOURNAL_PATH), equalTo(false));
+		assertThat(Files.readAllLines(INVOICES_PATH), 
+				hasItem("7,Customer,One,999.00,2022-01-07"));
+		assertThat(Files.readAllLines(INVOICES_PATH), hasSize(GOOD_INVOICES.size() + 1));
+	}
+	
+	@Test
+	public void testBackgroundCompaction() throws IOException {
+		persistence.close();
+		persistence = createPersistence(2);
+		persistence.saveInvoice(new Invoice
+				(7, GOOD_CUSTOMERS.get(0), 999, LocalDate.of(2022, 1, 7)));
+		persistence.saveInvoice(new Invoice
+				(8, GOOD_CUSTOMERS.get(1), 888, LocalDate.of(2022, 1, 7)));
+		persistence.saveInvoice(new Invoice
+				(9, GOOD_CUSTOMERS.get(2), 777, LocalDate.of(2022, 1, 7)));
+		persistence.close();
+		
+		assertThat(Files.exists(INVOICES_JOURNAL_PATH), equalTo(false));
+		assertThat(Files.readAllLines(INVOICES_PATH), hasSize(GOOD_INVOICES.size() + 3));
+		
+		persistence = createPersistence(2);
+		assertThat(persistence.getInvoices().keySet(), hasItems(7, 8, 9));
+	}
+}
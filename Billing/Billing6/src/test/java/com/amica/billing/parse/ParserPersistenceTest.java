@@ -3,12 +3,15 @@ package com.amica.billing.parse;
 import static com.amica.billing.TestUtility.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -67,6 +70,25 @@ public class ParserPersistenceTest {
 		}
 	}
 	
+	@Test
+	public void testLoad_Parallel() {
+		persistence.setParallelLoading(true);
+		persistence.setChunkSize(40);
+		persistence.load();
+		testGetInvoices();
+	}
+	
+	@Test
+	public void testLoad_Parallel_DuplicateNumber() throws IOException {
+		Files.write(Paths.get(TEMP_FOLDER, INVOICES_FILENAME), 
+				List.of("3,Customer,One,999.00,2022-01-07"), StandardOpenOption.APPEND);
+		assertThrows(IllegalStateException.class, persistence::load);
+		
+		persistence.setParallelLoading(true);
+		persistence.setChunkSize(40);
+		assertThrows(IllegalStateException.class, persistence::load);
+	}
+	
 	@Test
 	public void testSaveCustomer() throws IOException {
 		persistence.saveCustomer(new Customer("Customer", "Four", Terms.CASH));
@@ -77,6 +99,34 @@ public class ParserPersistenceTest {
 		}
 	}
 	
+	@Test
+	public void testSaveCustomer_GroupCommit() throws IOException {
+		persistence.setGroupCommitMillis(60000);
+		persistence.load();
+		persistence.saveCustomer(new Customer("Customer", "Four", Terms.CASH));
+		persistence.saveCustomer(new Customer("Customer", "Five", Terms.CASH));
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, CUSTOMERS_FILENAME)),
+				not(hasItem("Customer,Four,CASH")));
+		
+		persistence.flush();
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, CUSTOMERS_FILENAME)),
+				hasItems("Customer,Four,CASH", "Customer,Five,CASH"));
+		persistence.close();
+	}
+	
+	@Test
+	public void testNextInvoiceNumber() {
+		assertThat(persistence.nextInvoiceNumber(), equalTo(GOOD_INVOICES.size() + 1));
+		assertThat(persistence.nextInvoiceNumber(), equalTo(GOOD_INVOICES.size() + 2));
+	}
+	
+	@Test
+	public void testNextInvoiceNumber_AfterSavingHigherNumber() {
+		persistence.saveInvoice(new Invoice
+				(20, GOOD_CUSTOMERS.get(0), 999, LocalDate.now()));
+		assertThat(persistence.nextInvoiceNumber(), equalTo(21));
+	}
+	
 	public void testSaveInvoice() throws IOException {
 		persistence.saveInvoice(new Invoice
 				(7, GOOD_CUSTOMERS.get(0), 999, LocalDate.now()));
@@ -86,4 +136,39 @@ public class ParserPersistenceTest {
 					equalTo(true));
 		}
 	}
+	
+	@Test
+	public void testLoad_Snapshot() throws IOException {
+		SnapshotParser snapshots = new SnapshotParser();
+		snapshots.writeCustomers(Paths.get(TEMP_FOLDER, "customers.snapshot"),
+				persistence.getCustomers().values().stream());
+		snapshots.writeInvoices(Paths.get(TEMP_FOLDER, "invoices.snapshot"),
+				persistence.getInvoices().values().stream());
+		
+		persistence = new ParserPersistence();
+		persistence.setCustomersFile(TEMP_FOLDER + "/customers.snapshot");
+		persistence.setInvoicesFile(TEMP_FOLDER + "/invoices.snapshot");
+		persistence.setParallelLoading(true);
+		persistence.load();
+		testGetCustomers();
+		testGetInvoices();
+		
+		persistence.saveInvoice(new Invoice
+				(7, GOOD_CUSTOMERS.get(0), 999, LocalDate.of(2022, 1, 7)));
+		persistence.load();
+		assertThat(persistence.getInvoices().get(7).getAmount(), closeTo(999, .0001));
+	}
+	
+	@Test
+	public void testSaveAllInvoices() throws IOException {
+		persistence.setBatchSize(2);
+		persistence.saveAllInvoices(List.of(
+				new Invoice(7, GOOD_CUSTOMERS.get(0), 700, LocalDate.of(2022, 1, 7)),
+				new Invoice(8, GOOD_CUSTOMERS.get(1), 800, LocalDate.of(2022, 1, 7)),
+				new Invoice(9, GOOD_CUSTOMERS.get(2), 900, LocalDate.of(2022, 1, 7))));
+		assertThat(Files.readAllLines(Paths.get(TEMP_FOLDER, INVOICES_FILENAME)),
+				hasItems("7,Customer,One,700.00,2022-01-07", 
+					"8,Customer,Two,800.00,2022-01-07",
+					"9,Customer,Three,900.00,2022-01-07"));
+	}
 }
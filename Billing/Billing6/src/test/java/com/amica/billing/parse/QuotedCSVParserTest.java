@@ -2,13 +2,20 @@ package com.amica.billing.parse;
 
 import static com.amica.billing.TestUtility.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+import com.amica.billing.Terms;
+
 /**
  * Unit test for the {@link QuotedCSVParser}. Relies on data sets in the 
  * {@link TestUtility} and its own CSV representations of those data sets,
@@ -90,4 +97,22 @@ public class QuotedCSVParserTest {
 				.map(s -> s.replace(".00", "")).toList(),
 				sameAsList(GOOD_INVOICE_DATA));
 	}
+	
+	@Test
+	public void testRoundTrip_EmbeddedCommasAndQuotes() {
+		Customer customer = new Customer("Smith,Jr.", "O\"Brien", Terms.CASH);
+		Invoice invoice = new Invoice(7, customer, 700, LocalDate.of(2022, 1, 4));
+		
+		List<String> customerLines = 
+				parser.produceCustomers(Stream.of(customer)).toList();
+		assertThat(customerLines, contains("\"Smith,Jr.\",\"O\"\"Brien\",CASH"));
+		assertThat(parser.parseCustomers(customerLines.stream()).toList(),
+				sameAsList(List.of(customer)));
+		
+		List<String> invoiceLines = 
+				parser.produceInvoices(Stream.of(invoice)).toList();
+		assertThat(parser.parseInvoices(invoiceLines.stream(), 
+				Map.of(customer.getName(), customer)).toList(),
+				sameAsList(List.of(invoice)));
+	}
 }
@@ -0,0 +1,125 @@
+package com.amica.billing.parse;
+
+import static com.amica.billing.TestUtility.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.billing.Customer;
+import com.amica.billing.Invoice;
+
+/**
+ * Unit test for the {@link SnapshotParser}. We write the test data sets 
+ * as snapshots and read them back, and check that we reject files 
+ * that aren't snapshots of the expected kind and version.
+ * 
+ * @author Will Provost
+ */
+public class SnapshotParserTest {
+
+	public static final Path CUSTOMERS_PATH = 
+			Paths.get(TEMP_FOLDER, "customers.snapshot");
+	public static final Path INVOICES_PATH = 
+			Paths.get(TEMP_FOLDER, "invoices.snapshot");
+	
+	private SnapshotParser parser = new SnapshotParser();
+	
+	@BeforeEach
+	public void setUp() throws IOException {
+		Files.createDirectories(Paths.get(TEMP_FOLDER));
+	}
+	
+	private List<Customer> readCustomers() throws IOException {
+		try ( Stream<Customer> customers = parser.parseCustomers(CUSTOMERS_PATH); ) {
+			return customers.collect(Collectors.toList());
+		}
+	}
+	
+	private List<Invoice> readInvoices(Map<String,Customer> customers) 
+			throws IOException {
+		try ( Stream<Invoice> invoices = 
+				parser.parseInvoices(INVOICES_PATH, customers); ) {
+			return invoices.collect(Collectors.toList());
+		}
+	}
+	
+	@Test
+	public void testCustomers() throws IOException {
+		parser.writeCustomers(CUSTOMERS_PATH, GOOD_CUSTOMERS.stream());
+		assertThat(readCustomers(), sameAsList(GOOD_CUSTOMERS));
+	}
+	
+	@Test
+	public void testInvoices() throws IOException {
+		parser.writeInvoices(INVOICES_PATH, GOOD_INVOICES.stream());
+		assertThat(readInvoices(GOOD_CUSTOMERS_MAP), sameAsList(GOOD_INVOICES));
+		assertThat(readInvoices(GOOD_CUSTOMERS_MAP).get(0).getCustomer(),
+				sameInstance(GOOD_CUSTOMERS.get(0)));
+	}
+	
+	@Test
+	public void testInvoices_UnknownCustomer() throws IOException {
+		parser.writeInvoices(INVOICES_PATH, GOOD_INVOICES.stream());
+		Map<String,Customer> customers = GOOD_CUSTOMERS.stream().skip(1)
+				.collect(Collectors.toMap(Customer::getName, c -> c));
+		assertThat(readInvoices(customers), 
+				sameAsList(GOOD_INVOICES.subList(1, GOOD_INVOICES.size())));
+	}
+	
+	@Test
+	public void testEmpty() throws IOException {
+		parser.writeCustomers(CUSTOMERS_PATH, Stream.empty());
+		parser.writeInvoices(INVOICES_PATH, Stream.empty());
+		assertThat(readCustomers(), empty());
+		assertThat(readInvoices(GOOD_CUSTOMERS_MAP), empty());
+	}
+	
+	@Test
+	public void testWrongKind() throws IOException {
+		parser.writeCustomers(INVOICES_PATH, GOOD_CUSTOMERS.stream());
+		assertThrows(IOException.class, () -> readInvoices(GOOD_CUSTOMERS_MAP));
+	}
+	
+	@Test
+	public void testNotASnapshot() throws IOException {
+		Files.write(CUSTOMERS_PATH, List.of("Customer,One,CASH"));
+		assertThrows(IOException.class, this::readCustomers);
+		Files.write(CUSTOMERS_PATH, new byte[0]);
+		assertThrows(IOException.class, this::readCustomers);
+	}
+	
+	@Test
+	public void testUnknownVersion() throws IOException {
+		new DurableFile(CUSTOMERS_PATH).replace(stream -> {
+			DataOutputStream out = new DataOutputStream(stream);
+			out.writeInt(SnapshotParser.MAGIC);
+			out.writeShort(SnapshotParser.VERSION + 1);
+			out.writeByte(SnapshotParser.CUSTOMERS);
+			out.writeInt(0);
+			out.flush();
+		});
+		assertThrows(IOException.class, this::readCustomers);
+	}
+	
+	@Test
+	public void testLinesNotSupported() {
+		assertThat(parser.isLineBased(), equalTo(false));
+		assertThrows(UnsupportedOperationException.class, 
+				() -> parser.produceCustomers(GOOD_CUSTOMERS.stream()));
+		assertThrows(UnsupportedOperationException.class, 
+				() -> parser.parseInvoices(Stream.empty(), GOOD_CUSTOMERS_MAP));
+	}
+}
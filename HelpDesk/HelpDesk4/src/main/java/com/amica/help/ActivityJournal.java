@@ -0,0 +1,83 @@
+package com.amica.help;
+
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Desk-wide, time-ordered journal of ticket events, so that we can find
+ * the latest N events by reading N entries off the end instead of sorting
+ * every event we hold.
+ *
+ * Each event is journaled once, when it is recorded on the ticket that
+ * owns it. A reopened ticket's history includes the history of its prior
+ * ticket, but those inherited events are not journaled again, so they
+ * appear only once in the latest activity, under the prior ticket's ID.
+ *
+ * The journal is a concurrent skip list ordered by timestamp and then by
+ * the order in which events were journaled. Events normally arrive in
+ * timestamp order, and so land at the end; one stamped earlier than the
+ * latest is simply placed in order. Reading the latest N takes no locks.
+ *
+ * @author Will Provost
+ */
+public class ActivityJournal implements TicketListener {
+
+	/**
+	 * An event with the sequence number at which we journaled it.
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static class Entry implements Comparable<Entry> {
+		private final Event event;
+		private final long sequence;
+
+		public int compareTo(Entry other) {
+			int result = event.compareTo(other.getEvent());
+			if (result == 0) {
+				result = Long.compare(sequence, other.getSequence());
+			}
+			return result;
+		}
+	}
+
+	private NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+	private AtomicLong nextSequence = new AtomicLong();
+	private AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Journals the events already recorded on a ticket that was created
+	 * before it could be observed.
+	 */
+	public void add(Ticket ticket) {
+		ticket.getOwnHistory().forEach(this::append);
+	}
+
+	@Override
+	public void eventAdded(Ticket ticket, Event event) {
+		append(event);
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Returns up to the given number of events, most recent first.
+	 */
+	public Stream<Event> getLatest(int count) {
+		return entries.descendingSet().stream()
+				.limit(count)
+				.map(Entry::getEvent);
+	}
+
+	private void append(Event event) {
+		entries.add(new Entry(event, nextSequence.getAndIncrement()));
+		size.incrementAndGet();
+	}
+}
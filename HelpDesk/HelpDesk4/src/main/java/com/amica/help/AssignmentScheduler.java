@@ -0,0 +1,81 @@
+package com.amica.help;
+
+import java.util.Comparator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps technicians ordered by their number of active tickets, so that
+ * the least-busy technician can be found in O(log T) time. Ties go to the
+ * technician with the lowest ID, so assignments are deterministic.
+ * 
+ * A technician's position depends on its live count of active tickets,
+ * so the {@link Technician} calls {@link #updateLoad updateLoad} around
+ * any change to that count, and we re-position it in place.
+ * 
+ * All of this happens under the scheduler's lock, which is held only
+ * briefly, and never while waiting on any other lock except that of a
+ * ticket not yet visible to any other thread.
+ *
+ * @author Will Provost
+ */
+public class AssignmentScheduler {
+
+	private SortedSet<Technician> technicians = new TreeSet<>
+			(Comparator.comparingInt(Technician::getActiveTicketCount)
+				.thenComparing(Technician::getID));
+
+	/**
+	 * Starts scheduling work for the given technician.
+	 */
+	public synchronized void add(Technician technician) {
+		technician.setScheduler(this);
+		technicians.add(technician);
+	}
+
+	public synchronized boolean isEmpty() {
+		return technicians.isEmpty();
+	}
+
+	/**
+	 * Returns the technician with the fewest active tickets.
+	 */
+	public synchronized Technician getLeastBusy() {
+		if (technicians.isEmpty()) {
+			throw new IllegalStateException("No technicians available yet.");
+		}
+		return technicians.first();
+	}
+
+	/**
+	 * Assigns a new ticket to the least-busy technician, as one atomic step,
+	 * so that concurrent callers don't all pick the same technician.
+	 * The ticket must not yet be visible to other threads.
+	 */
+	public synchronized Technician assignToLeastBusy(Ticket ticket) {
+		Technician technician = getLeastBusy();
+		ticket.assign(technician);
+		return technician;
+	}
+
+	/**
+	 * Takes the technician out of order while its load changes,
+	 * and puts it back according to its new load.
+	 */
+	synchronized boolean updateLoad(Technician technician, LoadChange change) {
+		technicians.remove(technician);
+		try {
+			return change.apply();
+		} finally {
+			technicians.add(technician);
+		}
+	}
+
+	/**
+	 * A change to a technician's active tickets, reporting whether
+	 * anything actually changed.
+	 */
+	interface LoadChange {
+		boolean apply();
+	}
+}
@@ -1,11 +1,10 @@
 package com.amica.help;
 
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Collections;
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -19,13 +18,21 @@ import com.amica.help.Ticket.Status;
  * It also holds a tag manager, so that keyword tags assigned to tickets
  * are unique objects within the scope of this help desk instance.
  * 
+ * The help desk is safe for concurrent use. IDs are generated atomically;
+ * each ticket's lifecycle transitions lock only that ticket; and queries
+ * read from concurrent indexes without locking. New tickets are assigned
+ * before they are stored, so that no other thread can see a ticket
+ * until it has its technician.
+ * 
  * @author Will Provost
  */
 public class HelpDesk implements HelpDeskAPI {
 
-	private int nextID = 0;
-	private SortedSet<Technician> technicians = new TreeSet<>();
-	private SortedSet<Ticket> tickets = new TreeSet<>();
+	private AtomicInteger nextID = new AtomicInteger();
+	private SortedSet<Technician> technicians = new ConcurrentSkipListSet<>();
+	private AssignmentScheduler scheduler = new AssignmentScheduler();
+	private TicketStore tickets = new TicketStore();
+	private ResolutionStatistics statistics = new ResolutionStatistics();
 	private Tags tags;
 
 	public HelpDesk() {
@@ -34,6 +41,7 @@ public class HelpDesk implements HelpDeskAPI {
 	
 	public HelpDesk(Tags tags) {
 		this.tags = tags;
+		tickets.addTicketListener(statistics);
 	}
 
 	public Tags getTags() {
@@ -41,7 +49,10 @@ public class HelpDesk implements HelpDeskAPI {
 	}
 
 	public void addTechnician(String ID, String name, int extension) {
-		technicians.add(new Technician(ID, name, extension));
+		Technician technician = new Technician(ID, name, extension);
+		if (technicians.add(technician)) {
+			scheduler.add(technician);
+		}
 	}
 
 	public int createTicket(String originator, 
@@ -49,11 +60,10 @@ public class HelpDesk implements HelpDeskAPI {
 		if (technicians.isEmpty()) {
 			throw new IllegalStateException("No technicians available yet.");
 		}
-		Ticket ticket = new Ticket(++nextID, originator, description, priority);
+		Ticket ticket = new Ticket(nextID.incrementAndGet(), 
+				originator, description, priority);
+		scheduler.assignToLeastBusy(ticket);
 		tickets.add(ticket);
-		ticket.assign(technicians.stream()
-			.min(Comparator.comparing(t -> t.getActiveTickets().count()))
-			.get());
 		return ticket.getID();
 	}
 
@@ -77,59 +87,59 @@ public class HelpDesk implements HelpDeskAPI {
 			throw new IllegalStateException("No technicians available yet.");
 		}
 		Ticket ticket = new ReopenedTicket
-				(++nextID, getTicketByID(priorTicketID), reason, priority);
+				(nextID.incrementAndGet(), getTicketByID(priorTicketID), reason, priority);
 		tickets.add(ticket);
 		return ticket.getID();
 	}
 
 	public Stream<Ticket> getTickets() {
-		return tickets.stream();
+		return tickets.getTickets();
 	}
 
 	public Ticket getTicketByID(int ID) {
-		return tickets.stream()
-				.filter(t -> t.getID() == ID).findFirst().orElse(null);
+		return tickets.getTicketByID(ID);
 	}
 
 	public Stream<Ticket> getTicketsByStatus(Status status) {
-		return tickets.stream().filter(t -> t.getStatus() == status);
+		return tickets.getTicketsByStatus(status);
 	}
 
 	public Stream<Ticket> getTicketsByNotStatus(Status status) {
-		return tickets.stream().filter(t -> t.getStatus() != status);
+		return tickets.getTickets().filter(t -> t.getStatus() != status);
 	}
 
 	public Stream<Ticket> getTicketsByTechnician(String techID) {
-		return tickets.stream()
-				.filter(t -> t.getTechnician().getID().equals(techID));
+		return tickets.getTicketsByTechnician(techID);
 	}
 
 	public Stream<Ticket> getTicketsWithAnyTag(String... tagValues) {
-		return tickets.stream().filter(ticket -> ticket.getTags().anyMatch
-			(candidate -> Arrays.stream(tagValues).map(tags::getTag)
-				.anyMatch(tag -> tag.equals(candidate))));
+		return tickets.getTicketsWithAnyTag(Arrays.stream(tagValues)
+				.map(tags::getTag).toArray(Tag[]::new));
 	}
 
 	public int getAverageMinutesToResolve() {
-		return (int) getTicketsByStatus(Status.RESOLVED)
-				.mapToInt(Ticket::getMinutesToResolve).average()
-				.getAsDouble();
+		return (int) statistics.getOverall().getAverage();
 	}
 
 	public Map<String, Double> getAverageMinutesToResolvePerTechnician() {
-		return getTicketsByStatus(Status.RESOLVED)
-			.collect(Collectors.groupingBy(t -> t.getTechnician().getID(),
-				Collectors.averagingInt(Ticket::getMinutesToResolve)));
+		return statistics.getPerTechnician().entrySet().stream()
+			.collect(Collectors.toMap(Map.Entry::getKey, 
+				e -> e.getValue().getAverage()));
+	}
+
+	public ResolutionTimes getResolutionTimes() {
+		return statistics.getOverall();
+	}
+
+	public Map<String, ResolutionTimes> getResolutionTimesPerTechnician() {
+		return statistics.getPerTechnician();
 	}
 
 	public Stream<Ticket> getTicketsByText(String text) {
-		return tickets.stream().filter(t -> t.includesText(text));
+		return tickets.getTicketsByText(text);
 	}
 	
 	public Stream<Event> getLatestActivity(int count) {
-		return tickets.stream()
-				.flatMap(Ticket::getHistory)
-				.sorted(Collections.reverseOrder())
-				.limit(count);
+		return tickets.getLatestActivity(count);
 	}
 }
@@ -78,6 +78,7 @@ public interface HelpDeskAPI {
 	/**
 	 * Return the average time, in minutes, from creation to resolution
 	 * for all resolved tickets. Un-resolved tickets are not considered.
+	 * If no tickets have been resolved, returns zero.
 	 */
 	public int getAverageMinutesToResolve();
 	
@@ -89,6 +90,19 @@ public interface HelpDeskAPI {
 	 */
 	public Map<String,Double> getAverageMinutesToResolvePerTechnician();
 
+	/**
+	 * Return statistics on the time, in minutes, from creation to resolution
+	 * for all resolved tickets, including p50, p90, and p99 times.
+	 */
+	public ResolutionTimes getResolutionTimes();
+
+	/**
+	 * Return a map with keys that are technician IDs and values that are
+	 * statistics on time to resolve tickets for the corresponding technician.
+	 * As with averages, technicians with no resolved tickets are left out.
+	 */
+	public Map<String,ResolutionTimes> getResolutionTimesPerTechnician();
+
 	/**
 	 * Return a stream of all tickets whose descriptions and/or event notes
 	 * include the given text.
@@ -97,6 +111,9 @@ public interface HelpDeskAPI {
 	
 	/**
 	 * Returns a stream of the most recent N events, system-side.
+	 * Each event appears once, under the ticket on which it was recorded,
+	 * even though a reopened ticket's history also includes the events
+	 * of its prior ticket.
 	 */
 	public Stream<Event> getLatestActivity(int count);
 }
@@ -0,0 +1,47 @@
+package com.amica.help;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.amica.help.Ticket.Status;
+
+/**
+ * Keeps running {@link ResolutionTimes} for the whole help desk and for
+ * each technician. We listen for tickets moving to the RESOLVED status,
+ * and record each ticket's time to resolve once, as of its resolution,
+ * so that queries never need to revisit resolved tickets.
+ *
+ * @author Will Provost
+ */
+public class ResolutionStatistics implements TicketListener {
+
+	private ResolutionTimes overall = new ResolutionTimes();
+	private Map<String, ResolutionTimes> perTechnician = new ConcurrentHashMap<>();
+
+	@Override
+	public void statusChanged(Ticket ticket, Status oldStatus, Status newStatus) {
+		if (newStatus == Status.RESOLVED) {
+			int minutes = ticket.getMinutesToResolve();
+			overall.record(minutes);
+			perTechnician.computeIfAbsent(ticket.getTechnician().getID(),
+					k -> new ResolutionTimes()).record(minutes);
+		}
+	}
+
+	/**
+	 * Returns a snapshot of statistics across all technicians.
+	 */
+	public ResolutionTimes getOverall() {
+		return overall.copy();
+	}
+
+	/**
+	 * Returns snapshots of statistics for each technician that has resolved
+	 * at least one ticket, keyed by technician ID.
+	 */
+	public Map<String, ResolutionTimes> getPerTechnician() {
+		return perTechnician.entrySet().stream()
+			.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().copy()));
+	}
+}
@@ -0,0 +1,163 @@
+package com.amica.help;
+
+import java.util.Arrays;
+
+/**
+ * Running statistics on times to resolve tickets, in minutes. Each new
+ * time is recorded in constant time, updating the count, sum, minimum,
+ * and maximum, and a histogram from which we estimate percentiles.
+ * 
+ * The histogram is log-linear: times under {@value #LINEAR_LIMIT} minutes
+ * get a bucket each, and each doubling beyond that is split into
+ * {@value #SUB_BUCKETS} buckets, so a percentile is accurate to within
+ * about 3% of the true value, in a fixed amount of memory.
+ * 
+ * Instances are safe for concurrent use; call {@link #copy copy} to get
+ * a consistent snapshot.
+ *
+ * @author Will Provost
+ */
+public class ResolutionTimes {
+
+	public static final int LINEAR_LIMIT = 64;
+	public static final int SUB_BUCKETS = 32;
+
+	private static final int LINEAR_BITS = 6;
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int BUCKETS = 
+			LINEAR_LIMIT + (Integer.SIZE - 1 - LINEAR_BITS) * SUB_BUCKETS;
+
+	private long count;
+	private long sum;
+	private int min = Integer.MAX_VALUE;
+	private int max = Integer.MIN_VALUE;
+	private long[] histogram = new long[BUCKETS];
+
+	/**
+	 * Records one time to resolve. Negative times, which can only come
+	 * from a clock that was set back, are counted as zero.
+	 */
+	public synchronized void record(int minutes) {
+		minutes = Math.max(0, minutes);
+		++count;
+		sum += minutes;
+		min = Math.min(min, minutes);
+		max = Math.max(max, minutes);
+		++histogram[bucketOf(minutes)];
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public synchronized long getSum() {
+		return sum;
+	}
+
+	/**
+	 * Returns the shortest time recorded, or zero if none.
+	 */
+	public synchronized int getMin() {
+		return count != 0 ? min : 0;
+	}
+
+	/**
+	 * Returns the longest time recorded, or zero if none.
+	 */
+	public synchronized int getMax() {
+		return count != 0 ? max : 0;
+	}
+
+	/**
+	 * Returns the mean time recorded, or zero if none.
+	 */
+	public synchronized double getAverage() {
+		return count != 0 ? (double) sum / count : 0;
+	}
+
+	/**
+	 * Returns an estimate of the given percentile (0 to 100) of the times
+	 * recorded, or zero if none.
+	 */
+	public synchronized int getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException
+				("Percentile must be from 0 to 100: " + percentile);
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		if (rank == count) {
+			return max;
+		}
+
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+			seen += histogram[bucket];
+			if (seen >= rank) {
+				return Math.max(min, Math.min(max, midpointOf(bucket)));
+			}
+		}
+		return max;
+	}
+
+	public int getP50() {
+		return getPercentile(50);
+	}
+
+	public int getP90() {
+		return getPercentile(90);
+	}
+
+	public int getP99() {
+		return getPercentile(99);
+	}
+
+	/**
+	 * Returns a copy of the statistics as they stand now.
+	 */
+	public synchronized ResolutionTimes copy() {
+		ResolutionTimes result = new ResolutionTimes();
+		result.count = count;
+		result.sum = sum;
+		result.min = min;
+		result.max = max;
+		result.histogram = Arrays.copyOf(histogram, BUCKETS);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d resolved: average %.1f, p50 %d, p90 %d, p99 %d minutes",
+				getCount(), getAverage(), getP50(), getP90(), getP99());
+	}
+
+	static int bucketOf(int value) {
+		if (value < LINEAR_LIMIT) {
+			return value;
+		}
+		int exponent = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value);
+		int subBucket = (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+		return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+	}
+
+	static int lowerBoundOf(int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_BITS;
+		int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	static int midpointOf(int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		int width = 1 << ((bucket - LINEAR_LIMIT) / SUB_BUCKETS + 
+				LINEAR_BITS - SUB_BUCKET_BITS);
+		return lowerBoundOf(bucket) + (width - 1) / 2;
+	}
+}
@@ -4,6 +4,8 @@ import lombok.Getter;
 
 /**
  * Class representing a keyword tag that can be applied to a {@link Ticket}.
+ * Tags compare without sensitivity to case; we derive the lower-case key
+ * once, up front, since tags are used heavily as hash keys.
  *
  * @author Will Provost
  */
@@ -11,20 +13,28 @@ public class Tag implements Comparable<Tag> {
 
 	@Getter
 	private String value;
+	private String key;
 
 	Tag(String value) {
 		this.value = value;
+		this.key = keyOf(value);
+	}
+
+	/**
+	 * The case-insensitive key by which we compare and hash tag values.
+	 */
+	static String keyOf(String value) {
+		return value.toLowerCase();
 	}
 
 	@Override
 	public boolean equals(Object other) {
-		return other instanceof Tag && 
-				value.equalsIgnoreCase(((Tag) other).getValue());
+		return other instanceof Tag && key.equals(((Tag) other).key);
 	}
 
 	@Override
 	public int hashCode() {
-		return value.toLowerCase().hashCode();
+		return key.hashCode();
 	}
 
 	public int compareTo(Tag other) {
@@ -1,10 +1,10 @@
 package com.amica.help;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * This class manages keyword tags, assuring that only one instance of the
@@ -12,12 +12,19 @@ import java.util.TreeSet;
  * sensitivity to case. It also maps synonyms to tags, and assures that any
  * attempt to resolve a string to a tag takes those synonyms into account.
  * 
+ * Tags and synonyms are held in concurrent hash maps keyed on the
+ * lower-cased string, so resolving a string to a tag is a constant-time,
+ * lock-free lookup, and creating a new tag is an atomic get-or-create.
+ * A sorted set of the same tags is kept alongside for callers that want
+ * them in order.
+ * 
  * @author Will Provost
  */
 public class Tags {
 
-	private SortedSet<Tag> tags = new TreeSet<>();
-	private Map<String, Tag> synonyms = new HashMap<>();
+	private Map<String, Tag> tagsByKey = new ConcurrentHashMap<>();
+	private SortedSet<Tag> tags = new ConcurrentSkipListSet<>();
+	private Map<String, Tag> synonyms = new ConcurrentHashMap<>();
 
 	/**
 	 * Returns a view of all tags.
@@ -39,7 +46,7 @@ public class Tags {
 	 * as a tag for the first time; or it will find an existing tag that matches. 
 	 */
 	public void addSynonym(String synonym, String term) {
-		synonyms.put(synonym.toLowerCase(), getTag(term));
+		synonyms.put(Tag.keyOf(synonym), getTag(term));
 	}
 
 	/**
@@ -49,16 +56,21 @@ public class Tags {
 	 */
 	public Tag getTag(String value) {
 		
-		if (synonyms.containsKey(value.toLowerCase())) {
-			return synonyms.get(value.toLowerCase());
+		String key = Tag.keyOf(value);
+		Tag synonym = synonyms.get(key);
+		if (synonym != null) {
+			return synonym;
 		}
 
-		Tag candidate = new Tag(value);
-		if (!tags.stream().anyMatch(candidate::equals)) {
-			tags.add(candidate);
+		Tag tag = tagsByKey.get(key);
+		if (tag == null) {
+			tag = tagsByKey.computeIfAbsent(key, k -> {
+					Tag created = new Tag(value);
+					tags.add(created);
+					return created;
+				});
 		}
-		
-		return tags.stream().filter(candidate::equals).findAny().get();
+		return tag;
 	}
 
 }
@@ -1,14 +1,20 @@
 package com.amica.help;
 
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Represents a technician ont he staff of the help desk.
+ * The set of active tickets is safe for concurrent assignment and
+ * resolution, and we keep a count alongside it, since counting a
+ * concurrent set means walking it.
  *
  * @author Will Provost
  */
@@ -19,7 +25,12 @@ public class Technician implements Comparable<Technician> {
 	private String ID;
 	private String name;
 	private int extension;
-	private SortedSet<Ticket> activeTickets = new TreeSet<>();
+	private SortedSet<Ticket> activeTickets = new ConcurrentSkipListSet<>();
+	@Getter(AccessLevel.NONE)
+	private AtomicInteger activeTicketCount = new AtomicInteger();
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.PACKAGE)
+	private AssignmentScheduler scheduler;
 
 	public Technician(String ID, String name, int extension) {
 		this.ID = ID;
@@ -31,12 +42,36 @@ public class Technician implements Comparable<Technician> {
 		return activeTickets.stream();
 	}
   
+	public int getActiveTicketCount() {
+		return activeTicketCount.get();
+	}
+  
 	public boolean assignTicket(Ticket ticket) {
-		return activeTickets.add(ticket);
+		return scheduler != null
+				? scheduler.updateLoad(this, () -> addActiveTicket(ticket))
+				: addActiveTicket(ticket);
 	}
 	
 	public boolean resolveTicket(Ticket ticket) {
-		return activeTickets.remove(ticket);
+		return scheduler != null
+				? scheduler.updateLoad(this, () -> removeActiveTicket(ticket))
+				: removeActiveTicket(ticket);
+	}
+
+	private boolean addActiveTicket(Ticket ticket) {
+		boolean added = activeTickets.add(ticket);
+		if (added) {
+			activeTicketCount.incrementAndGet();
+		}
+		return added;
+	}
+
+	private boolean removeActiveTicket(Ticket ticket) {
+		boolean removed = activeTickets.remove(ticket);
+		if (removed) {
+			activeTicketCount.decrementAndGet();
+		}
+		return removed;
 	}
 	
 	@Override
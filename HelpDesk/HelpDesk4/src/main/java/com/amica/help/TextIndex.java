@@ -0,0 +1,82 @@
+package com.amica.help;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index over ticket descriptions and event notes, tokenized into
+ * overlapping trigrams. A substring query is answered by intersecting the
+ * posting sets for the query's own trigrams, which yields a (usually
+ * small) set of candidate tickets that might contain the text; the caller
+ * then confirms each candidate with an exact check.
+ *
+ * The index only covers each ticket's own text. Matching through prior
+ * tickets, for reopened tickets, is left to the {@link TicketStore}.
+ * Postings are held in concurrent collections, so the index can be
+ * updated and queried from many threads at once.
+ *
+ * @author Will Provost
+ */
+public class TextIndex implements TicketListener {
+
+	public static final int GRAM_LENGTH = 3;
+
+	private Map<String, Set<Ticket>> postings = new ConcurrentHashMap<>();
+
+	/**
+	 * Indexes the ticket's description and any events already recorded.
+	 */
+	public void add(Ticket ticket) {
+		ticket.getOwnText().forEach(text -> index(ticket, text));
+	}
+
+	@Override
+	public void eventAdded(Ticket ticket, Event event) {
+		index(ticket, event.getNote());
+	}
+
+	/**
+	 * Returns the tickets whose own text contains every trigram in the
+	 * given text, or null if the text is too short to be answered from
+	 * the index.
+	 */
+	public Set<Ticket> getCandidates(String text) {
+		if (text.length() < GRAM_LENGTH) {
+			return null;
+		}
+
+		List<Set<Ticket>> sets = grams(text).stream()
+				.map(gram -> postings.getOrDefault(gram, Collections.emptySet()))
+				.sorted(Comparator.comparing(Set::size))
+				.collect(Collectors.toList());
+
+		Set<Ticket> result = new HashSet<>(sets.get(0));
+		for (int i = 1; i < sets.size() && !result.isEmpty(); ++i) {
+			result.retainAll(sets.get(i));
+		}
+		return result;
+	}
+
+	private void index(Ticket ticket, String text) {
+		if (text != null) {
+			for (String gram : grams(text)) {
+				postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet())
+					.add(ticket);
+			}
+		}
+	}
+
+	private static Set<String> grams(String text) {
+		Set<String> result = new HashSet<>();
+		for (int i = 0; i + GRAM_LENGTH <= text.length(); ++i) {
+			result.add(text.substring(i, i + GRAM_LENGTH));
+		}
+		return result;
+	}
+}
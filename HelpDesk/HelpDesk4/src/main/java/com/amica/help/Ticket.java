@@ -1,17 +1,22 @@
 package com.amica.help;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Stream;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 /**
  * Class representing a problem ticket for a help desk.
+ * 
+ * Tickets are safe to share between threads. Lifecycle transitions and
+ * other changes lock the ticket itself, so they are serialized per ticket;
+ * reads of status, technician, history, and tags take no locks.
  *
  * @author Will Provost
  */
@@ -22,23 +27,60 @@ public class Ticket implements Comparable<Ticket> {
 	public enum Status { CREATED, ASSIGNED, WAITING, RESOLVED }
 	public enum Priority { LOW, MEDIUM, HIGH, URGENT }
 
+	@Getter
+	private static volatile boolean verifyingStatus;
+
 	private int ID;
 	private Priority priority;
 	private String originator;
 	private String description;
-	private Technician technician;
-	private List<Event> history = new ArrayList<>();
-	private SortedSet<Tag> tags = new TreeSet<>();
+	private volatile Technician technician;
+	private volatile Status status;
+	private List<Event> history = new CopyOnWriteArrayList<>();
+	private SortedSet<Tag> tags = new ConcurrentSkipListSet<>();
+	@Getter(AccessLevel.NONE)
+	private List<TicketListener> listeners = new CopyOnWriteArrayList<>();
 
 	public Ticket(int ID, String originator, String description, Priority priority) {
 		this.ID = ID;
 		this.priority = priority;
 		this.originator = originator;
 		this.description = description;
+		this.status = Status.CREATED;
 		this.history.add(new Event(this, Status.CREATED, "Created ticket."));
 	}
 
+	/**
+	 * Turns on a mode, meant for testing, in which every call to
+	 * {@link #getStatus getStatus} checks the maintained status against
+	 * a full replay of the ticket's history.
+	 */
+	public static void setVerifyingStatus(boolean verifyingStatus) {
+		Ticket.verifyingStatus = verifyingStatus;
+	}
+
+	/**
+	 * Returns the current status, which we maintain as events are added.
+	 * The history remains the audit trail; see {@link #replayStatus}.
+	 */
 	public Status getStatus() {
+		if (verifyingStatus) {
+			synchronized (this) {
+				Status replayed = replayStatus();
+				if (replayed != status) {
+					throw new IllegalStateException(String.format
+						("Ticket %d has status %s, but its history shows %s.",
+							ID, status, replayed));
+				}
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Derives the status from the history: the last status set by any event.
+	 */
+	public Status replayStatus() {
 		return history.stream()
 				.map(Event::getNewStatus)
 				.filter(Objects::nonNull)
@@ -53,52 +95,98 @@ public class Ticket implements Comparable<Ticket> {
 	public Stream<Tag> getTags() {
 		return tags.stream();
 	}
+
+	/**
+	 * Returns only the events recorded on this ticket itself, even for
+	 * a reopened ticket.
+	 */
+	Stream<Event> getOwnHistory() {
+		return history.stream();
+	}
+
+	synchronized void addListener(TicketListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Records an event in the history and notifies listeners.
+	 */
+	private void addEvent(Event event) {
+		history.add(event);
+		for (TicketListener listener : listeners) {
+			listener.eventAdded(this, event);
+		}
+	}
+
+	/**
+	 * Records an event that sets the given status, and notifies listeners
+	 * if the status has actually changed.
+	 */
+	private void changeStatus(Status newStatus, String note) {
+		Status oldStatus = status;
+		status = newStatus;
+		addEvent(new Event(this, newStatus, note));
+		if (newStatus != oldStatus) {
+			for (TicketListener listener : listeners) {
+				listener.statusChanged(this, oldStatus, newStatus);
+			}
+		}
+	}
     
-	public void assign(Technician technician) {
+	public synchronized void assign(Technician technician) {
 		if (getStatus() != Status.RESOLVED) {
-			if (this.technician != null) {
-				this.technician.resolveTicket(this);
+			Technician oldTechnician = this.technician;
+			if (oldTechnician != null) {
+				oldTechnician.resolveTicket(this);
 			}
 			
 			this.technician = technician;
-			Status newStatus = Status.ASSIGNED;
-			history.add(new Event(this, newStatus, "Assigned to " + technician + "."));
+			changeStatus(Status.ASSIGNED, "Assigned to " + technician + ".");
 			technician.assignTicket(this);
+			for (TicketListener listener : listeners) {
+				listener.technicianChanged(this, oldTechnician, technician);
+			}
 		} else {
 			throw new IllegalStateException("Can't re-assign a resolved new ticket.");
 		}
 	}
 
-    public void suspend(String reason) {
+    public synchronized void suspend(String reason) {
 	    	if (getStatus() == Status.ASSIGNED) {
-	    		history.add(new Event(this, Status.WAITING, reason));
+	    		changeStatus(Status.WAITING, reason);
 	    	} else {
 	    		throw new IllegalStateException("Can't suspend until the ticket is assigned.");
 	    	}
     }
     
-    public void resume(String reason) {
+    public synchronized void resume(String reason) {
 	    	if (getStatus() == Status.WAITING) { 
-	    		history.add(new Event(this, Status.ASSIGNED, reason));
+	    		changeStatus(Status.ASSIGNED, reason);
 	    	} else {
 	    		throw new IllegalStateException("Can't seume a ticket that isn't in the WAITING state.");
 	    	}
     }
-	public void addNote(String note) {
-		history.add(new Event(this, note));
+	public synchronized void addNote(String note) {
+		addEvent(new Event(this, note));
 	}
 
-	public void resolve(String reason) {
+	public synchronized void resolve(String reason) {
 		if (getStatus() != Status.RESOLVED) {
-			history.add(new Event(this, Status.RESOLVED, reason));
+			changeStatus(Status.RESOLVED, reason);
 			technician.resolveTicket(this);
 		} else {
 			throw new IllegalStateException("Can't resolve a resolved ticket.");
 		}
 	}
 
-	public boolean addTag(Tag tag) {
-		return tags.add(tag);
+	public synchronized boolean addTag(Tag tag) {
+		boolean added = tags.add(tag);
+		if (added) {
+			for (TicketListener listener : listeners) {
+				listener.tagAdded(this, tag);
+			}
+		}
+		return added;
 	}
 
 	public int getMinutesToResolve() {
@@ -115,6 +203,24 @@ public class Ticket implements Comparable<Ticket> {
 		return description.contains(text) 
 				|| getHistory().map(Event::getNote).anyMatch(n -> n.contains(text));
     }
+
+	/**
+	 * Checks only this ticket's own description and notes, without
+	 * considering any prior ticket.
+	 */
+	boolean includesOwnText(String text) {
+		return description.contains(text) 
+				|| history.stream().map(Event::getNote).anyMatch(n -> n.contains(text));
+	}
+
+	/**
+	 * Returns the pieces of text that belong to this ticket itself:
+	 * its description and the notes on its own events.
+	 */
+	Stream<String> getOwnText() {
+		return Stream.concat(Stream.of(description),
+				getOwnHistory().map(Event::getNote));
+	}
     
 	@Override
 	public String toString() {
@@ -0,0 +1,41 @@
+package com.amica.help;
+
+import com.amica.help.Ticket.Status;
+
+/**
+ * Callback interface for components that keep derived views of tickets,
+ * such as indexes, up to date as tickets move through their lifecycle.
+ * A {@link Ticket} notifies its listeners after each change is applied.
+ *
+ * @author Will Provost
+ */
+public interface TicketListener {
+
+	/**
+	 * Called when an event is added to the ticket's history, before any
+	 * other notification that the same change may cause.
+	 */
+	default void eventAdded(Ticket ticket, Event event) {
+	}
+
+	/**
+	 * Called when the ticket's status changes. Not called for events
+	 * that leave the status as it was.
+	 */
+	default void statusChanged(Ticket ticket, Status oldStatus, Status newStatus) {
+	}
+
+	/**
+	 * Called when the ticket is assigned or re-assigned. The old technician
+	 * will be null on first assignment.
+	 */
+	default void technicianChanged(Ticket ticket,
+			Technician oldTechnician, Technician newTechnician) {
+	}
+
+	/**
+	 * Called when a tag is added to the ticket for the first time.
+	 */
+	default void tagAdded(Ticket ticket, Tag tag) {
+	}
+}
@@ -0,0 +1,248 @@
+package com.amica.help;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+import com.amica.help.Ticket.Status;
+
+/**
+ * Holds the tickets for a {@link HelpDesk}, along with secondary indexes
+ * that let us answer the common queries without scanning every ticket.
+ * Tickets are found by ID in an array keyed directly on the (dense,
+ * generated) ticket ID, and there are posting sets by status, by
+ * technician ID, and by tag; and a {@link TextIndex} narrows text
+ * searches down to a few candidate tickets. An {@link ActivityJournal}
+ * keeps every event in time order. Every posting set is ordered as the master
+ * set is, so query results come out in the same order as a filtered
+ * scan would produce.
+ *
+ * The store registers itself as a {@link TicketListener} on each ticket
+ * it holds, so the indexes follow assignment, suspension, resumption,
+ * resolution, and tagging, whether those are driven through the help desk
+ * or directly on the ticket.
+ *
+ * The store is safe for concurrent use. All of the indexes are concurrent
+ * collections, so queries take no locks and see a weakly-consistent view;
+ * updates for a given ticket arrive under that ticket's lock, and so are
+ * applied in order. Adding a ticket also holds its lock, so no change to
+ * the ticket can slip in between indexing it and listening to it.
+ *
+ * @author Will Provost
+ */
+public class TicketStore implements TicketListener {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private volatile AtomicReferenceArray<Ticket> ticketsByID =
+			new AtomicReferenceArray<>(INITIAL_CAPACITY);
+	private SortedSet<Ticket> tickets = new ConcurrentSkipListSet<>();
+	private Map<Status, SortedSet<Ticket>> ticketsByStatus =
+			new EnumMap<>(Status.class);
+	private Map<String, SortedSet<Ticket>> ticketsByTechnician =
+			new ConcurrentHashMap<>();
+	private Map<Tag, SortedSet<Ticket>> ticketsByTag = new ConcurrentHashMap<>();
+	private Map<Integer, List<Ticket>> reopenedTickets = new ConcurrentHashMap<>();
+	private TextIndex textIndex = new TextIndex();
+	private ActivityJournal journal = new ActivityJournal();
+	private List<TicketListener> listeners = new CopyOnWriteArrayList<>();
+
+	public TicketStore() {
+		for (Status status : Status.values()) {
+			ticketsByStatus.put(status, new ConcurrentSkipListSet<>());
+		}
+	}
+
+	/**
+	 * Adds the ticket to the store, indexing it according to its current
+	 * state, and starts listening for changes to it.
+	 */
+	public void add(Ticket ticket) {
+		synchronized (ticket) {
+			publish(ticket);
+
+			tickets.add(ticket);
+			ticketsByStatus.get(ticket.getStatus()).add(ticket);
+			if (ticket.getTechnician() != null) {
+				postingSet(ticketsByTechnician, ticket.getTechnician().getID())
+					.add(ticket);
+			}
+
+			// Register a reopened ticket before reading its tags, so that
+			// a tag added to the prior ticket meanwhile is not missed:
+			if (ticket instanceof ReopenedTicket) {
+				reopenedTickets.computeIfAbsent
+					(((ReopenedTicket) ticket).getPriorTicket().getID(),
+						k -> new CopyOnWriteArrayList<>()).add(ticket);
+			}
+			ticket.getTags().forEach(tag -> postingSet(ticketsByTag, tag).add(ticket));
+
+			textIndex.add(ticket);
+			journal.add(ticket);
+
+			ticket.addListener(this);
+			ticket.addListener(textIndex);
+			ticket.addListener(journal);
+			listeners.forEach(ticket::addListener);
+		}
+	}
+
+	/**
+	 * Adds a listener that will be attached to every ticket added to the
+	 * store from now on, for components outside the store that want to
+	 * follow ticket changes.
+	 */
+	public void addTicketListener(TicketListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Places the ticket in the by-ID array, growing it as needed.
+	 */
+	private synchronized void publish(Ticket ticket) {
+		int ID = ticket.getID();
+		if (ID < 0) {
+			throw new IllegalArgumentException("Ticket IDs can't be negative.");
+		}
+
+		AtomicReferenceArray<Ticket> array = ticketsByID;
+		if (ID >= array.length()) {
+			AtomicReferenceArray<Ticket> grown = new AtomicReferenceArray<>
+					(Math.max(ID + 1, array.length() * 2));
+			for (int i = 0; i < array.length(); ++i) {
+				grown.set(i, array.get(i));
+			}
+			ticketsByID = array = grown;
+		}
+		if (!array.compareAndSet(ID, null, ticket)) {
+			throw new IllegalArgumentException("Duplicate ticket ID " + ID);
+		}
+	}
+
+	public boolean isEmpty() {
+		return tickets.isEmpty();
+	}
+
+	public int size() {
+		return tickets.size();
+	}
+
+	public Ticket getTicketByID(int ID) {
+		AtomicReferenceArray<Ticket> array = ticketsByID;
+		return ID >= 0 && ID < array.length() ? array.get(ID) : null;
+	}
+
+	public Stream<Ticket> getTickets() {
+		return tickets.stream();
+	}
+
+	public Stream<Ticket> getTicketsByStatus(Status status) {
+		return ticketsByStatus.get(status).stream();
+	}
+
+	public Stream<Ticket> getTicketsByTechnician(String techID) {
+		return ticketsByTechnician.getOrDefault(techID,
+				Collections.emptySortedSet()).stream();
+	}
+
+	/**
+	 * Returns the tickets that carry any of the given tags, each ticket
+	 * appearing only once, in master-set order.
+	 */
+	public Stream<Ticket> getTicketsWithAnyTag(Tag... tags) {
+		if (tags.length == 1) {
+			return ticketsByTag.getOrDefault(tags[0],
+					Collections.emptySortedSet()).stream();
+		}
+
+		SortedSet<Ticket> result = new TreeSet<>();
+		for (Tag tag : tags) {
+			result.addAll(ticketsByTag.getOrDefault(tag,
+					Collections.emptySortedSet()));
+		}
+		return result.stream();
+	}
+
+	/**
+	 * Returns the tickets whose descriptions or notes, or those of any
+	 * prior ticket, include the given text. Queries long enough to be
+	 * tokenized are answered from the text index, with each candidate
+	 * confirmed against its own text; shorter ones fall back to a scan.
+	 */
+	public Stream<Ticket> getTicketsByText(String text) {
+		Set<Ticket> candidates = textIndex.getCandidates(text);
+		if (candidates == null) {
+			return tickets.stream().filter(t -> t.includesText(text));
+		}
+
+		SortedSet<Ticket> result = new TreeSet<>();
+		for (Ticket candidate : candidates) {
+			if (candidate.includesOwnText(text)) {
+				addWithReopened(result, candidate);
+			}
+		}
+		return result.stream();
+	}
+
+	private void addWithReopened(SortedSet<Ticket> result, Ticket ticket) {
+		if (result.add(ticket)) {
+			for (Ticket reopened : reopenedTickets.getOrDefault
+					(ticket.getID(), Collections.emptyList())) {
+				addWithReopened(result, reopened);
+			}
+		}
+	}
+
+	/**
+	 * Returns the most recent events across all tickets, latest first.
+	 * See {@link ActivityJournal} for how reopened tickets are treated.
+	 */
+	public Stream<Event> getLatestActivity(int count) {
+		return journal.getLatest(count);
+	}
+
+	@Override
+	public void statusChanged(Ticket ticket, Status oldStatus, Status newStatus) {
+		ticketsByStatus.get(oldStatus).remove(ticket);
+		ticketsByStatus.get(newStatus).add(ticket);
+	}
+
+	@Override
+	public void technicianChanged(Ticket ticket,
+			Technician oldTechnician, Technician newTechnician) {
+		if (oldTechnician != null) {
+			SortedSet<Ticket> postings = ticketsByTechnician.get(oldTechnician.getID());
+			if (postings != null) {
+				postings.remove(ticket);
+			}
+		}
+		postingSet(ticketsByTechnician, newTechnician.getID()).add(ticket);
+	}
+
+	/**
+	 * A reopened ticket shows the tags of its prior ticket, so we post the
+	 * ticket under the new tag along with any tickets reopened from it.
+	 */
+	@Override
+	public void tagAdded(Ticket ticket, Tag tag) {
+		postingSet(ticketsByTag, tag).add(ticket);
+		for (Ticket reopened :
+				reopenedTickets.getOrDefault(ticket.getID(), Collections.emptyList())) {
+			tagAdded(reopened, tag);
+		}
+	}
+
+	private static <K> SortedSet<Ticket> postingSet
+			(Map<K, SortedSet<Ticket>> index, K key) {
+		return index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>());
+	}
+}
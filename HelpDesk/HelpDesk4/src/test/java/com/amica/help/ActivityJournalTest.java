@@ -0,0 +1,77 @@
+package com.amica.help;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.help.Ticket.Priority;
+
+/**
+ * Unit test for the {@link ActivityJournal} class.
+ *
+ * @author Will Provost
+ */
+public class ActivityJournalTest {
+
+	private ActivityJournal journal = new ActivityJournal();
+	private Technician technician = new Technician("TECH1", "TECH1", 1);
+	private Ticket ticket;
+
+	@BeforeEach
+	public void setUp() {
+		Clock.setTime(60000);
+		ticket = new Ticket(1, "ORIGINATOR", "DESCRIPTION", Priority.LOW);
+		journal.add(ticket);
+		ticket.addListener(journal);
+	}
+
+	private List<String> latestNotes(int count) {
+		return journal.getLatest(count).map(Event::getNote)
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testLatestFirst() {
+		ticket.assign(technician);
+		Clock.setTime(120000);
+		ticket.addNote("NOTE1");
+		Clock.setTime(180000);
+		ticket.addNote("NOTE2");
+
+		assertThat(latestNotes(2), contains("NOTE2", "NOTE1"));
+		assertThat(latestNotes(10), contains("NOTE2", "NOTE1",
+				"Assigned to Technician TECH1, TECH1.", "Created ticket."));
+		assertThat(latestNotes(0).size(), equalTo(0));
+	}
+
+	@Test
+	public void testOutOfOrderTimestamp() {
+		Clock.setTime(180000);
+		ticket.addNote("LATE");
+		Clock.setTime(120000);
+		ticket.addNote("EARLY");
+
+		assertThat(latestNotes(3), contains("LATE", "EARLY", "Created ticket."));
+	}
+
+	@Test
+	public void testReopenedTicketEventsJournaledOnce() {
+		ticket.assign(technician);
+		ticket.resolve("RESOLVED");
+		Clock.setTime(120000);
+		Ticket reopened = new ReopenedTicket(2, ticket, "REOPENED", Priority.LOW);
+		journal.add(reopened);
+		reopened.addListener(journal);
+
+		assertThat(reopened.getHistory().count(), equalTo(5L));
+		assertThat(journal.size(), equalTo(5));
+		assertThat(journal.getLatest(2).map(Event::getTicketID)
+				.collect(Collectors.toList()), contains(2, 2));
+	}
+}
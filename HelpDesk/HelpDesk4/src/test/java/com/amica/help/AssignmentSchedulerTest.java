@@ -0,0 +1,82 @@
+package com.amica.help;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.help.Ticket.Priority;
+
+/**
+ * Unit test for the {@link AssignmentScheduler} class.
+ *
+ * @author Will Provost
+ */
+public class AssignmentSchedulerTest {
+
+	private AssignmentScheduler scheduler = new AssignmentScheduler();
+	private Technician tech1 = new Technician("TECH1", "TECH1", 1);
+	private Technician tech2 = new Technician("TECH2", "TECH2", 2);
+	private Technician tech3 = new Technician("TECH3", "TECH3", 3);
+
+	@BeforeEach
+	public void setUp() {
+		Clock.setTime(100);
+		scheduler.add(tech3);
+		scheduler.add(tech1);
+		scheduler.add(tech2);
+	}
+
+	private Ticket ticket(int ID) {
+		return new Ticket(ID, "ORIGINATOR", "DESCRIPTION", Priority.LOW);
+	}
+
+	@Test
+	public void testTiesGoToLowestID() {
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech1));
+	}
+
+	@Test
+	public void testFollowsAssignment() {
+		tech1.assignTicket(ticket(1));
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech2));
+		tech2.assignTicket(ticket(2));
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech3));
+		tech3.assignTicket(ticket(3));
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech1));
+	}
+
+	@Test
+	public void testFollowsResolution() {
+		Ticket ticket1 = ticket(1);
+		tech1.assignTicket(ticket1);
+		tech2.assignTicket(ticket(2));
+		tech3.assignTicket(ticket(3));
+		tech3.assignTicket(ticket(4));
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech1));
+
+		tech1.assignTicket(ticket(5));
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech2));
+		tech1.resolveTicket(ticket1);
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech1));
+	}
+
+	@Test
+	public void testDuplicateAssignmentDoesNotChangeLoad() {
+		Ticket ticket1 = ticket(1);
+		tech1.assignTicket(ticket1);
+		tech2.assignTicket(ticket(2));
+		tech1.assignTicket(ticket1);
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech3));
+		tech3.resolveTicket(ticket1);
+		assertThat(scheduler.getLeastBusy(), sameInstance(tech3));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertThrows(IllegalStateException.class,
+				() -> new AssignmentScheduler().getLeastBusy());
+	}
+}
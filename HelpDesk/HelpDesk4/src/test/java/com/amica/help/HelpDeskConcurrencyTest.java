@@ -0,0 +1,189 @@
+package com.amica.help;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.help.Ticket.Priority;
+import com.amica.help.Ticket.Status;
+
+/**
+ * Stress test for the {@link HelpDesk} under concurrent use. Writer threads
+ * each replay a series of {@link TestProgram}-style scenarios while reader
+ * threads run queries; then we check that the indexes, technicians'
+ * active tickets, and the activity journal all agree with the tickets.
+ *
+ * @author Will Provost
+ */
+public class HelpDeskConcurrencyTest {
+
+	public static final int WRITERS = 8;
+	public static final int READERS = 4;
+	public static final int SCENARIOS_PER_WRITER = 200;
+	public static final String[] TAGS = { "laptop", "VPN", "remoting", "GitHub" };
+
+	private HelpDesk helpDesk = new HelpDesk();
+
+	@BeforeEach
+	public void setUp() {
+		Ticket.setVerifyingStatus(true);
+		Clock.setTime("11/1/21 8:00");
+		for (int t = 1; t <= 6; ++t) {
+			helpDesk.addTechnician("T" + t, "Technician" + t, t);
+		}
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Ticket.setVerifyingStatus(false);
+	}
+
+	/**
+	 * One ticket's worth of activity, varied by the scenario number.
+	 */
+	private void runScenario(int writer, int scenario) {
+		Priority priority = Priority.values()[scenario % Priority.values().length];
+		int ID = helpDesk.createTicket("W" + writer,
+				"Writer " + writer + " scenario " + scenario + ".", priority);
+		helpDesk.addTags(ID, TAGS[scenario % TAGS.length],
+				TAGS[(scenario + writer) % TAGS.length].toUpperCase());
+
+		Ticket ticket = helpDesk.getTicketByID(ID);
+		ticket.addNote("Looking into it.");
+		if (scenario % 3 == 0) {
+			ticket.suspend("Waiting on the user.");
+			if (scenario % 2 == 0) {
+				ticket.resume("Heard back.");
+			}
+		}
+		if (ticket.getStatus() == Status.ASSIGNED && scenario % 4 != 1) {
+			ticket.resolve("Fixed for writer " + writer + ".");
+			if (scenario % 5 == 0) {
+				int reopenedID = helpDesk.reopenTicket(ID, "Broke again.", priority);
+				helpDesk.addTags(ID, "reopened");
+				helpDesk.getTicketByID(reopenedID).addNote("Second look.");
+			}
+		}
+	}
+
+	private void runQueries() {
+		helpDesk.getTicketsByStatus(Status.ASSIGNED).count();
+		helpDesk.getTicketsByTechnician("T1").count();
+		helpDesk.getTicketsWithAnyTag("laptop", "vpn").count();
+		helpDesk.getTicketsByText("scenario 1").count();
+		helpDesk.getLatestActivity(20).count();
+		helpDesk.getTicketByID(1);
+	}
+
+	@Test
+	public void testConcurrentScenarios() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try {
+			List<Future<?>> writers = new ArrayList<>();
+			for (int w = 0; w < WRITERS; ++w) {
+				final int writer = w;
+				writers.add(executor.submit(() -> {
+					start.await();
+					for (int s = 0; s < SCENARIOS_PER_WRITER; ++s) {
+						runScenario(writer, s);
+					}
+					return null;
+				}));
+			}
+			List<Future<?>> readers = new ArrayList<>();
+			for (int r = 0; r < READERS; ++r) {
+				readers.add(executor.submit(() -> {
+					start.await();
+					while (writing.get()) {
+						runQueries();
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for (Future<?> writer : writers) {
+				writer.get(60, TimeUnit.SECONDS);
+			}
+			writing.set(false);
+			for (Future<?> reader : readers) {
+				reader.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		checkInvariants();
+	}
+
+	private static <T> Set<T> toSet(Stream<T> stream) {
+		return stream.collect(Collectors.toSet());
+	}
+
+	private void checkInvariants() {
+		List<Ticket> all = helpDesk.getTickets().collect(Collectors.toList());
+		int count = all.size();
+		assertThat(count, equalTo(WRITERS * SCENARIOS_PER_WRITER +
+				(int) all.stream().filter(t -> t instanceof ReopenedTicket).count()));
+		for (int ID = 1; ID <= count; ++ID) {
+			assertThat("Ticket " + ID, helpDesk.getTicketByID(ID), notNullValue());
+			assertThat(helpDesk.getTicketByID(ID).getID(), equalTo(ID));
+		}
+
+		for (Status status : Status.values()) {
+			assertThat(status.toString(), toSet(helpDesk.getTicketsByStatus(status)),
+				equalTo(toSet(all.stream().filter(t -> t.getStatus() == status))));
+		}
+
+		int assigned = 0;
+		for (Technician technician : helpDesk.getTechnicians()) {
+			Set<Ticket> active = toSet(all.stream()
+				.filter(t -> t.getTechnician().equals(technician))
+				.filter(t -> t.getStatus() != Status.RESOLVED));
+			assertThat(technician.getID(),
+				toSet(technician.getActiveTickets()), equalTo(active));
+			assertThat(technician.getActiveTicketCount(), equalTo(active.size()));
+
+			Set<Ticket> byTech = toSet(helpDesk.getTicketsByTechnician(technician.getID()));
+			assertThat(byTech, equalTo(toSet(all.stream()
+				.filter(t -> t.getTechnician().equals(technician)))));
+			assigned += byTech.size();
+		}
+		assertThat(assigned, equalTo(count));
+
+		for (String tag : new String[] { "laptop", "VPN", "remoting", "GitHub", "reopened" }) {
+			Tag expected = helpDesk.getTags().getTag(tag);
+			assertThat(tag, toSet(helpDesk.getTicketsWithAnyTag(tag)),
+				equalTo(toSet(all.stream().filter(t -> t.getTags().anyMatch(expected::equals)))));
+		}
+
+		for (String text : new String[] { "Writer 3 ", "scenario 17.", "Broke", "Second look" }) {
+			assertThat(text, toSet(helpDesk.getTicketsByText(text)),
+				equalTo(toSet(all.stream().filter(t -> t.includesText(text)))));
+		}
+
+		long events = all.stream().flatMap(Ticket::getOwnHistory).count();
+		List<Event> latest = helpDesk.getLatestActivity((int) events + 10)
+				.collect(Collectors.toList());
+		assertThat((long) latest.size(), equalTo(events));
+		assertThat((long) toSet(latest.stream()).size(), equalTo(events));
+	}
+}
@@ -10,6 +10,7 @@ import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeMatcher;
 
 import com.amica.help.Ticket.Priority;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -94,6 +95,7 @@ public class HelpDeskTest {
 
 	@BeforeEach
 	public void addTechnician() {
+		Ticket.setVerifyingStatus(true);
 		helpDesk.addTechnician(TECH1, TECH1, 1);
 		helpDesk.addTechnician(TECH2, TECH2, 2);
 		helpDesk.addTechnician(TECH3, TECH3, 3);
@@ -106,6 +108,11 @@ public class HelpDeskTest {
 		Clock.setTime(100);
 	}
 
+	@AfterEach
+	public void tearDown() {
+		Ticket.setVerifyingStatus(false);
+	}
+
 	public void createTicket1() {
 		helpDesk.createTicket(TICKET1_ORIGINATOR, TICKET1_DESCRIPTION, TICKET1_PRIORITY);
 	}
@@ -200,5 +207,32 @@ public class HelpDeskTest {
 		Stream<Ticket> tickets = helpDesk.getTicketsByTechnician(tech1.getID());
 		assertThat(true, equalTo(new HasIDs(1).matchesSafely(tickets)));
 	}
-}
 
+	@Test
+	public void averageWithNothingResolvedTest() {
+		createTicket1();
+		assertThat(helpDesk.getAverageMinutesToResolve(), equalTo(0));
+		assertThat(helpDesk.getAverageMinutesToResolvePerTechnician().isEmpty(),
+				equalTo(true));
+	}
+
+	@Test
+	public void resolutionTimesTest() {
+		createTicket1();
+		createTicket2();
+		Clock.setTime(100 + 10 * 60000);
+		helpDesk.getTicketByID(1).resolve("Resolved");
+		Clock.setTime(100 + 30 * 60000);
+		helpDesk.getTicketByID(2).resolve("Resolved");
+
+		assertThat(helpDesk.getAverageMinutesToResolve(), equalTo(20));
+		assertThat(helpDesk.getResolutionTimes().getP50(), equalTo(10));
+		assertThat(helpDesk.getResolutionTimes().getP99(), equalTo(30));
+		assertThat(helpDesk.getAverageMinutesToResolvePerTechnician().get(TECH1),
+				equalTo(10.0));
+		assertThat(helpDesk.getResolutionTimesPerTechnician().get(TECH2).getMax(),
+				equalTo(30));
+		assertThat(helpDesk.getResolutionTimesPerTechnician().containsKey(TECH3),
+				equalTo(false));
+	}
+}
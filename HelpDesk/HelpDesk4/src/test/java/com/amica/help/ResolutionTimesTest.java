@@ -0,0 +1,87 @@
+package com.amica.help;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link ResolutionTimes} class.
+ *
+ * @author Will Provost
+ */
+public class ResolutionTimesTest {
+
+	private ResolutionTimes times = new ResolutionTimes();
+
+	@Test
+	public void testEmpty() {
+		assertThat(times.getCount(), equalTo(0L));
+		assertThat(times.getAverage(), equalTo(0.0));
+		assertThat(times.getMin(), equalTo(0));
+		assertThat(times.getMax(), equalTo(0));
+		assertThat(times.getP50(), equalTo(0));
+	}
+
+	@Test
+	public void testAggregates() {
+		times.record(10);
+		times.record(30);
+		times.record(20);
+		assertThat(times.getCount(), equalTo(3L));
+		assertThat(times.getSum(), equalTo(60L));
+		assertThat(times.getMin(), equalTo(10));
+		assertThat(times.getMax(), equalTo(30));
+		assertThat(times.getAverage(), equalTo(20.0));
+	}
+
+	@Test
+	public void testExactPercentilesForSmallTimes() {
+		for (int minutes = 1; minutes <= 50; ++minutes) {
+			times.record(minutes);
+		}
+		assertThat(times.getP50(), equalTo(25));
+		assertThat(times.getP90(), equalTo(45));
+		assertThat(times.getP99(), equalTo(50));
+		assertThat(times.getPercentile(0), equalTo(1));
+		assertThat(times.getPercentile(100), equalTo(50));
+	}
+
+	@Test
+	public void testApproximatePercentilesForLargeTimes() {
+		for (int minutes = 1; minutes <= 100000; ++minutes) {
+			times.record(minutes);
+		}
+		assertThat((double) times.getP50(), closeTo(50000, 50000 * .03));
+		assertThat((double) times.getP90(), closeTo(90000, 90000 * .03));
+		assertThat((double) times.getP99(), closeTo(99000, 99000 * .03));
+		assertThat(times.getPercentile(100), equalTo(100000));
+	}
+
+	@Test
+	public void testBuckets() {
+		for (int value : new int[] { 0, 63, 64, 65, 127, 128, 1000, 
+				1 << 20, Integer.MAX_VALUE }) {
+			int bucket = ResolutionTimes.bucketOf(value);
+			assertThat(ResolutionTimes.lowerBoundOf(bucket) <= value, equalTo(true));
+			assertThat(bucket + 1 == ResolutionTimes.bucketOf(Integer.MAX_VALUE) + 1 ||
+				ResolutionTimes.lowerBoundOf(bucket + 1) > value, equalTo(true));
+		}
+	}
+
+	@Test
+	public void testCopyIsSnapshot() {
+		times.record(5);
+		ResolutionTimes copy = times.copy();
+		times.record(500);
+		assertThat(copy.getCount(), equalTo(1L));
+		assertThat(copy.getMax(), equalTo(5));
+	}
+
+	@Test
+	public void testBadPercentile() {
+		assertThrows(IllegalArgumentException.class, () -> times.getPercentile(101));
+	}
+}
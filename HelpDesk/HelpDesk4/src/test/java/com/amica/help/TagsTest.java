@@ -0,0 +1,82 @@
+package com.amica.help;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link Tags} class.
+ *
+ * @author Will Provost
+ */
+public class TagsTest {
+
+	private Tags tags = new Tags();
+
+	@Test
+	public void testSameInstanceIgnoringCase() {
+		Tag tag = tags.getTag("GitHub");
+		assertThat(tags.getTag("github"), sameInstance(tag));
+		assertThat(tags.getTag("GITHUB"), sameInstance(tag));
+		assertThat(tags.getTag("github").getValue(), equalTo("GitHub"));
+	}
+
+	@Test
+	public void testSynonyms() {
+		tags.addSynonym("RDP", "remoting");
+		Tag remoting = tags.getTag("remoting");
+		assertThat(tags.getTag("rdp"), sameInstance(remoting));
+		assertThat(tags.getTag("RDP"), sameInstance(remoting));
+		assertThat(tags.getTags().size(), equalTo(1));
+	}
+
+	@Test
+	public void testSortedView() {
+		tags.getTag("VPN");
+		tags.getTag("audio");
+		tags.getTag("CMA");
+		tags.getTag("vpn");
+		assertThat(tags.getTags().stream().map(Tag::getValue)
+				.collect(Collectors.toList()), contains("audio", "CMA", "VPN"));
+	}
+
+	@Test
+	public void testConcurrentGetOrCreate() throws Exception {
+		final int THREADS = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Callable<Tag>> tasks = IntStream.range(0, THREADS * 100)
+				.mapToObj(i -> (Callable<Tag>) () ->
+					tags.getTag(i % 2 == 0 ? "laptop" : "LAPTOP"))
+				.collect(Collectors.toList());
+			List<Tag> results = executor.invokeAll(tasks).stream()
+				.map(TagsTest::get).collect(Collectors.toList());
+
+			Tag laptop = tags.getTag("laptop");
+			assertThat(results, everyItem(sameInstance(laptop)));
+			assertThat(tags.getTags().size(), equalTo(1));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static Tag get(Future<Tag> future) {
+		try {
+			return future.get();
+		} catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
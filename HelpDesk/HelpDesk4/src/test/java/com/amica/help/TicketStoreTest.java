@@ -0,0 +1,183 @@
+package com.amica.help;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static com.amica.help.HelpDeskTest.hasIDs;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amica.help.Ticket.Priority;
+import com.amica.help.Ticket.Status;
+
+/**
+ * Unit test for the {@link TicketStore} class, focusing on keeping the
+ * secondary indexes consistent as tickets change.
+ *
+ * @author Will Provost
+ */
+public class TicketStoreTest {
+
+	private TicketStore store = new TicketStore();
+	private Technician tech1 = new Technician("TECH1", "TECH1", 1);
+	private Technician tech2 = new Technician("TECH2", "TECH2", 2);
+	private Ticket ticket1;
+	private Ticket ticket2;
+
+	@BeforeEach
+	public void setUp() {
+		Ticket.setVerifyingStatus(true);
+		Clock.setTime(100);
+		ticket1 = new Ticket(1, "ORIGINATOR1", "DESCRIPTION1", Priority.LOW);
+		ticket2 = new Ticket(2, "ORIGINATOR2", "DESCRIPTION2", Priority.HIGH);
+		store.add(ticket1);
+		store.add(ticket2);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Ticket.setVerifyingStatus(false);
+	}
+
+	@Test
+	public void testGetByID() {
+		assertThat(store.getTicketByID(1), sameInstance(ticket1));
+		assertThat(store.getTicketByID(2), sameInstance(ticket2));
+		assertThat(store.getTicketByID(0), nullValue());
+		assertThat(store.getTicketByID(-1), nullValue());
+		assertThat(store.getTicketByID(1000), nullValue());
+	}
+
+	@Test
+	public void testGrowsPastInitialCapacity() {
+		Ticket ticket = new Ticket(500, "ORIGINATOR", "DESCRIPTION", Priority.LOW);
+		store.add(ticket);
+		assertThat(store.getTicketByID(500), sameInstance(ticket));
+		assertThat(store.size(), equalTo(3));
+	}
+
+	@Test
+	public void testDuplicateID() {
+		assertThrows(IllegalArgumentException.class, () -> store.add
+				(new Ticket(1, "ORIGINATOR", "DESCRIPTION", Priority.LOW)));
+	}
+
+	@Test
+	public void testStatusIndex() {
+		assertThat(store.getTicketsByStatus(Status.CREATED), hasIDs(2, 1));
+
+		ticket1.assign(tech1);
+		ticket2.assign(tech1);
+		assertThat(store.getTicketsByStatus(Status.CREATED), hasIDs());
+		assertThat(store.getTicketsByStatus(Status.ASSIGNED), hasIDs(2, 1));
+
+		ticket1.suspend("WAIT");
+		assertThat(store.getTicketsByStatus(Status.ASSIGNED), hasIDs(2));
+		assertThat(store.getTicketsByStatus(Status.WAITING), hasIDs(1));
+
+		ticket1.resume("RESUME");
+		ticket2.resolve("RESOLVE");
+		assertThat(store.getTicketsByStatus(Status.ASSIGNED), hasIDs(1));
+		assertThat(store.getTicketsByStatus(Status.WAITING), hasIDs());
+		assertThat(store.getTicketsByStatus(Status.RESOLVED), hasIDs(2));
+	}
+
+	@Test
+	public void testTechnicianIndex() {
+		ticket1.assign(tech1);
+		ticket2.assign(tech1);
+		assertThat(store.getTicketsByTechnician("TECH1"), hasIDs(2, 1));
+
+		ticket1.assign(tech2);
+		assertThat(store.getTicketsByTechnician("TECH1"), hasIDs(2));
+		assertThat(store.getTicketsByTechnician("TECH2"), hasIDs(1));
+		assertThat(store.getTicketsByTechnician("NOBODY"), hasIDs());
+	}
+
+	@Test
+	public void testTagIndex() {
+		Tag tag1 = new Tag("TAG1");
+		Tag tag2 = new Tag("TAG2");
+		ticket1.addTag(tag1);
+		ticket2.addTag(tag2);
+		ticket2.addTag(tag1);
+
+		assertThat(store.getTicketsWithAnyTag(tag1), hasIDs(2, 1));
+		assertThat(store.getTicketsWithAnyTag(new Tag("tag2")), hasIDs(2));
+		assertThat(store.getTicketsWithAnyTag(tag1, tag2), hasIDs(2, 1));
+		assertThat(store.getTicketsWithAnyTag(new Tag("TAG3")), hasIDs());
+	}
+
+	@Test
+	public void testReopenedTicketFollowsPriorTags() {
+		Tag tag1 = new Tag("TAG1");
+		Tag tag2 = new Tag("TAG2");
+		ticket1.assign(tech1);
+		ticket1.addTag(tag1);
+		ticket1.resolve("RESOLVE");
+
+		Ticket reopened = new ReopenedTicket(3, ticket1, "REOPEN", Priority.LOW);
+		store.add(reopened);
+		assertThat(store.getTicketsWithAnyTag(tag1), hasIDs(1, 3));
+		assertThat(store.getTicketsByTechnician("TECH1"), hasIDs(1, 3));
+		assertThat(store.getTicketsByStatus(Status.ASSIGNED), hasIDs(3));
+
+		ticket1.addTag(tag2);
+		assertThat(store.getTicketsWithAnyTag(tag2), hasIDs(1, 3));
+	}
+
+	@Test
+	public void testTextSearch() {
+		ticket1.assign(tech1);
+		ticket1.addNote("Rebooted the laptop.");
+		ticket2.assign(tech2);
+		ticket2.suspend("Waiting on the user's laptop");
+
+		assertThat(store.getTicketsByText("laptop"), hasIDs(2, 1));
+		assertThat(store.getTicketsByText("Rebooted"), hasIDs(1));
+		assertThat(store.getTicketsByText("rebooted"), hasIDs());
+		assertThat(store.getTicketsByText("DESCRIPTION2"), hasIDs(2));
+		assertThat(store.getTicketsByText("la"), hasIDs(2, 1));
+		assertThat(store.getTicketsByText(""), hasIDs(2, 1));
+		assertThat(store.getTicketsByText("xyzzy"), hasIDs());
+	}
+
+	@Test
+	public void testTextSearchMatchesIncludesText() {
+		ticket1.assign(tech1);
+		ticket1.addNote("Determined that it's a VPN problem.");
+		ticket1.resolve("Updated the VPN client.");
+		Ticket reopened = new ReopenedTicket(3, ticket1, "Still failing.", Priority.HIGH);
+		store.add(reopened);
+		reopened.addNote("Escalated to networking.");
+		ticket2.assign(tech2);
+		ticket2.addNote("Networking says no.");
+
+		List<Ticket> all = store.getTickets().collect(Collectors.toList());
+		for (String text : new String[] { "VPN", "VPN problem", "failing",
+				"Networking", "networking", "DESCRIPTION", "Created ticket.",
+				"TECH2", "client.", "Q", "zzz" }) {
+			assertThat(text, store.getTicketsByText(text).collect(Collectors.toList()),
+				equalTo(all.stream().filter(t -> t.includesText(text))
+					.collect(Collectors.toList())));
+		}
+		assertThat(store.getTicketsByText("VPN"), hasIDs(3, 1));
+	}
+
+	@Test
+	public void testTextIndexFollowsNewNotes() {
+		assertThat(store.getTicketsByText("later note"), hasIDs());
+		ticket2.addNote("A later note.");
+		assertThat(store.getTicketsByText("later note"), hasIDs(2));
+		assertThat(Stream.of(ticket1, ticket2).filter(t -> t.includesText("later note"))
+			.count(), equalTo(1L));
+	}
+}
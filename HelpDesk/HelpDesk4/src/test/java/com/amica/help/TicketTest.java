@@ -2,8 +2,11 @@ package com.amica.help;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.hamcrest.Matcher;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 import com.amica.help.Ticket.Priority;
 import com.amica.help.Ticket.Status;
@@ -66,8 +69,46 @@ public class TicketTest {
    */
   @BeforeEach
   public void setUp() {
+    Ticket.setVerifyingStatus(true);
     Clock.setTime(START_TIME);
     ticket = new Ticket(ID, ORIGINATOR, DESCRIPTION, PRIORITY);
   }
+
+  @AfterEach
+  public void tearDown() {
+    Ticket.setVerifyingStatus(false);
+  }
+
+  @Test
+  public void testInitialStatus() {
+    assertThat(ticket.getStatus(), equalTo(Status.CREATED));
+    assertHasEvent(0, Status.CREATED, "Created ticket.");
+  }
+
+  @Test
+  public void testStatusFollowsLifecycle() {
+    Technician technician = 
+        new Technician(TECHNICIAN1_ID, TECHNICIAN1_NAME, TECHNICIAN1_EXT);
+    ticket.assign(technician);
+    assertThat(ticket.getStatus(), equalTo(Status.ASSIGNED));
+    ticket.suspend(WAIT_REASON);
+    assertThat(ticket.getStatus(), equalTo(Status.WAITING));
+    ticket.addNote(NOTE);
+    assertThat(ticket.getStatus(), equalTo(Status.WAITING));
+    ticket.resume(RESUME_REASON);
+    assertThat(ticket.getStatus(), equalTo(Status.ASSIGNED));
+    ticket.resolve(RESOLVE_REASON);
+    assertThat(ticket.getStatus(), equalTo(Status.RESOLVED));
+    assertHasEvent(5, Status.RESOLVED, RESOLVE_REASON);
+    assertThat(ticket.replayStatus(), equalTo(Status.RESOLVED));
+  }
+
+  @Test
+  public void testInvalidTransitionsLeaveStatus() {
+    assertThrows(IllegalStateException.class, () -> ticket.resume(RESUME_REASON));
+    assertThat(ticket.getStatus(), equalTo(Status.CREATED));
+    assertThrows(IllegalStateException.class, () -> ticket.suspend(WAIT_REASON));
+    assertThat(ticket.getStatus(), equalTo(Status.CREATED));
+  }
   
 }